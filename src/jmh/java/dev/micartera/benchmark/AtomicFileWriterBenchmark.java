@@ -0,0 +1,49 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.infrastructure.storage.AtomicFileWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Цена атомарной записи (временный файл, fsync, rename) относительно простой перезаписи файла
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomicFileWriterBenchmark {
+    @Param({"1024", "65536"})
+    private int size;
+
+    private BenchmarkStorage storage;
+    private byte[] data;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        data = new byte[size];
+        new Random(42).nextBytes(data);
+        target = storage.getRoot().resolve("target.json");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.delete();
+    }
+
+    @Benchmark
+    public void atomicWrite() throws IOException {
+        AtomicFileWriter.write(target, data);
+    }
+
+    @Benchmark
+    public void plainWrite() throws IOException {
+        Files.write(target, data);
+    }
+}
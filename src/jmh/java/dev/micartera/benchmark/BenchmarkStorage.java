@@ -0,0 +1,45 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.storage.TransactionJournal;
+import dev.micartera.infrastructure.storage.TransferInbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Отдельный временный каталог хранилища на каждый прогон, чтобы бенчмарки не трогали ./storage
+public class BenchmarkStorage {
+    private final Path root;
+
+    public BenchmarkStorage() {
+        try {
+            ApplicationConfig.initialize();
+            root = Files.createTempDirectory("micartera-bench");
+            Files.createDirectories(root.resolve("users"));
+            Files.createDirectories(root.resolve("wallets"));
+            Files.createDirectories(root.resolve("transfers"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not prepare benchmark storage", e);
+        }
+        ApplicationConfig.setProperty("app.storage.path", root.toString());
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    // Журнал и очередь переводов каталога закрываются: их фоновые потоки не переживают прогон
+    public void delete() {
+        TransactionJournal.closeDirectory(root.resolve("users"));
+        TransferInbox.closeDirectory(root.resolve("transfers"));
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete benchmark storage", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.Budget;
+import dev.micartera.domain.model.Category;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+// Синтетические данные для бенчмарков: фиксированный seed дает одинаковые наборы между прогонами
+public class DataGenerator {
+    public static final String PASSWORD = "Password123";
+    // Один хеш на всех пользователей: хеширование не должно попадать в подготовку данных
+    public static final String PASSWORD_HASH = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+    private final Random random = new Random(42);
+
+    public List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User(new UUID(0, i + 1), "user" + i, PASSWORD_HASH, LocalDateTime.now()));
+        }
+        return users;
+    }
+
+    public List<Category> categories(int count) {
+        List<Category> categories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Category.CategoryType type = i % 4 == 0 ? Category.CategoryType.INCOME : Category.CategoryType.EXPENSE;
+            categories.add(new Category(UUID.randomUUID(), "Категория " + i, type));
+        }
+        return categories;
+    }
+
+    public List<Budget> budgets(List<Category> categories) {
+        List<Budget> budgets = new ArrayList<>();
+        for (Category category : categories) {
+            if (category.getType() == Category.CategoryType.EXPENSE) {
+                budgets.add(new Budget(category.getId(), amount(5000, 50000), BigDecimal.ZERO, true,
+                        LocalDateTime.now().minusMonths(1)));
+            }
+        }
+        return budgets;
+    }
+
+    // Кошелек с историей из transactions операций, равномерно распределенных по последним months месяцам
+    public Wallet wallet(UUID userId, int transactions, int months) {
+        Wallet wallet = new Wallet(userId);
+        List<Category> categories = categories(12);
+        wallet.getCategories().addAll(categories);
+        budgets(categories).forEach(budget -> wallet.getBudgets().put(budget.getCategoryId(), budget));
+
+        LocalDateTime now = LocalDateTime.now();
+        long periodMinutes = months * 30L * 24 * 60;
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < transactions; i++) {
+            Category category = categories.get(random.nextInt(categories.size()));
+            Transaction.TransactionType type = category.getType() == Category.CategoryType.INCOME
+                    ? Transaction.TransactionType.INCOME : Transaction.TransactionType.EXPENSE;
+            BigDecimal amount = amount(100, 10000);
+            balance = type == Transaction.TransactionType.INCOME ? balance.add(amount) : balance.subtract(amount);
+            Transaction transaction = new Transaction(UUID.randomUUID(), type, amount, category,
+                    now.minusMinutes((long) (random.nextDouble() * periodMinutes)),
+                    Transaction.TransactionStatus.APPROVED, "Операция " + i, null, null, null);
+            wallet.getTransactionHistory().add(transaction);
+            wallet.getCategoryTotals().add(transaction);
+        }
+        wallet.setBalance(balance);
+        return wallet;
+    }
+
+    private BigDecimal amount(int min, int max) {
+        return BigDecimal.valueOf(min + random.nextDouble() * (max - min)).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,71 @@
+package dev.micartera.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.util.JsonUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Большой кошелек с историей внутри файла: разбор через String (как было до потоковых методов
+// JsonUtils) против потокового чтения/записи с готовыми ObjectReader/ObjectWriter и Blackbird
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+    @Param({"1000", "50000"})
+    private int transactions;
+
+    private final ObjectMapper plainMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private BenchmarkStorage storage;
+    private Wallet wallet;
+    private Path file;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storage = new BenchmarkStorage();
+        wallet = new DataGenerator().wallet(UUID.randomUUID(), transactions, 120);
+        file = storage.getRoot().resolve("wallet.json");
+        output = storage.getRoot().resolve("wallet-out.json");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            JsonUtils.write(out, wallet);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.delete();
+    }
+
+    @Benchmark
+    public Wallet readViaString() throws IOException {
+        return plainMapper.readValue(new String(Files.readAllBytes(file)), Wallet.class);
+    }
+
+    @Benchmark
+    public Wallet readStreaming() throws IOException {
+        return JsonUtils.read(file, Wallet.class);
+    }
+
+    @Benchmark
+    public void writeViaString() throws IOException {
+        Files.writeString(output, plainMapper.writeValueAsString(wallet));
+    }
+
+    @Benchmark
+    public void writeStreaming() throws IOException {
+        try (OutputStream out = Files.newOutputStream(output)) {
+            JsonUtils.write(out, wallet);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.infrastructure.security.PasswordHasher;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность проверки паролей (входов в секунду) в зависимости от числа потоков пула
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    private static final int BATCH = 32;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"8", "10"})
+    private int cost;
+
+    private PasswordHasher hasher;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hasher = new PasswordHasher(cost, threads);
+        hash = BCrypt.hashpw(DataGenerator.PASSWORD, BCrypt.gensalt(cost));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hasher.close();
+    }
+
+    // Пачка одновременных входов, как при сценарии массовой проверки
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int concurrentLogins() {
+        List<CompletableFuture<Boolean>> logins = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            logins.add(hasher.verifyAsync(DataGenerator.PASSWORD, hash));
+        }
+        int valid = 0;
+        for (CompletableFuture<Boolean> login : logins) {
+            valid += login.join() ? 1 : 0;
+        }
+        return valid;
+    }
+}
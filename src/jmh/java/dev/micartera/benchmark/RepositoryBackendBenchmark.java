@@ -0,0 +1,103 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.Repositories;
+import dev.micartera.infrastructure.repository.TransactionRepository;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Одни и те же запросы к файловому хранилищу и встроенной БД (app.storage.backend);
+// 1 млн транзакций: -p transactions=1000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBackendBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"files", "h2"})
+    private String backend;
+
+    @Param({"10000", "100000"})
+    private int transactions;
+
+    private BenchmarkStorage storage;
+    private Repositories repositories;
+    private UserRepository userRepository;
+    private TransactionRepository transactionRepository;
+    private UUID userId;
+    private List<String> logins;
+    private List<UUID> transactionIds;
+    private LocalDateTime monthStart;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        ApplicationConfig.setProperty("app.storage.jdbc.url",
+                "jdbc:h2:file:" + storage.getRoot().resolve("db").resolve("bench"));
+        DataGenerator generator = new DataGenerator();
+        repositories = Repositories.create(backend, List.of());
+        userRepository = repositories.getUserRepository();
+        WalletRepository walletRepository = repositories.getWalletRepository();
+        transactionRepository = repositories.getTransactionRepository();
+
+        List<User> users = generator.users(1000);
+        users.forEach(userRepository::save);
+        logins = users.stream().map(User::getLogin).toList();
+        userId = users.get(0).getId();
+        Wallet wallet = generator.wallet(userId, transactions, 120);
+        walletRepository.save(wallet);
+        walletRepository.appendTransactions(userId, wallet.getTransactionHistory());
+        transactionIds = wallet.getTransactionHistory().stream()
+                .map(Transaction::getId)
+                .filter(id -> Math.floorMod(id.hashCode(), Math.max(1, transactions / 1000)) == 0)
+                .toList();
+        monthStart = LocalDateTime.now().minusMonths(6).withDayOfMonth(1).toLocalDate().atStartOfDay();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repositories.close();
+        storage.delete();
+    }
+
+    @Benchmark
+    public Optional<User> findUserByLogin() {
+        next = (next + 1) % logins.size();
+        return userRepository.findByLogin(logins.get(next));
+    }
+
+    @Benchmark
+    public Optional<Transaction> findTransactionById() {
+        next = (next + 1) % transactionIds.size();
+        return transactionRepository.findTransactionById(transactionIds.get(next));
+    }
+
+    @Benchmark
+    public List<Transaction> historyFirstPage() {
+        return transactionRepository.findTransactionHistoryPage(userId, LocalDateTime.MIN, LocalDateTime.now(),
+                null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public long monthHistoryScan() {
+        try (Stream<Transaction> history = transactionRepository.streamTransactionHistoryByUserId(userId,
+                monthStart, monthStart.plusMonths(1))) {
+            return history.count();
+        }
+    }
+}
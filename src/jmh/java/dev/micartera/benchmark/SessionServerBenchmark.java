@@ -0,0 +1,143 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.Category;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.Repositories;
+import dev.micartera.presentation.server.SessionServer;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Нагрузка на серверный режим: 8 клиентов одновременно. sessions - полные сессии в секунду
+// (вход, две операции, баланс, выход), operation - задержка одной операции (см. p0.99).
+// sharedUser=true - все клиенты работают с одним кошельком и ждут его блокировку.
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(8)
+@Fork(1)
+public class SessionServerBenchmark {
+    private static final int USERS = 64;
+    // Низкая стоимость bcrypt, чтобы вход не заслонял работу сессии
+    private static final int BCRYPT_COST = 4;
+
+    @Param({"false", "true"})
+    private boolean sharedUser;
+
+    private BenchmarkStorage storage;
+    private Repositories repositories;
+    private SessionServer server;
+    private final AtomicInteger clients = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storage = new BenchmarkStorage();
+        ApplicationConfig.setProperty("security.password.bcrypt.cost", String.valueOf(BCRYPT_COST));
+        repositories = Repositories.create("files", List.of("write-behind", "cache"));
+        String hash = BCrypt.hashpw(DataGenerator.PASSWORD, BCrypt.gensalt(BCRYPT_COST));
+        List<User> users = new ArrayList<>();
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User(UUID.randomUUID(), "client" + i, hash, LocalDateTime.now());
+            Wallet wallet = new Wallet(user.getId());
+            wallet.getCategories().add(new Category(UUID.randomUUID(), "salary", Category.CategoryType.INCOME));
+            wallet.getCategories().add(new Category(UUID.randomUUID(), "food", Category.CategoryType.EXPENSE));
+            wallet.setBalance(new BigDecimal("1000000000.00"));
+            users.add(user);
+            wallets.add(wallet);
+        }
+        repositories.getUserRepository().saveAll(users);
+        repositories.getWalletRepository().saveAll(wallets);
+        server = new SessionServer(repositories, "127.0.0.1", 0);
+        server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+        repositories.close();
+        storage.delete();
+    }
+
+    String nextLogin() {
+        return sharedUser ? "client0" : "client" + Math.floorMod(clients.getAndIncrement(), USERS);
+    }
+
+    // Постоянное подключение клиента с открытой сессией для замера отдельных операций
+    @State(Scope.Thread)
+    public static class OpenSession {
+        private Client client;
+
+        @Setup(Level.Trial)
+        public void open(SessionServerBenchmark benchmark) throws IOException {
+            client = new Client(benchmark.server.getPort());
+            client.call("LOGIN " + benchmark.nextLogin() + " " + DataGenerator.PASSWORD);
+        }
+
+        // Сервер закрывает сессию сам при разрыве соединения
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String sessions() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            client.call("LOGIN " + nextLogin() + " " + DataGenerator.PASSWORD);
+            client.call("INCOME 10.00 salary bench");
+            client.call("EXPENSE 5.00 food bench");
+            String balance = client.call("BALANCE");
+            client.call("QUIT");
+            return balance;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String operation(OpenSession session) throws IOException {
+        return session.client.call("EXPENSE 1.00 food bench");
+    }
+
+    private static class Client implements Closeable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        private Client(int port) throws IOException {
+            socket = new Socket("127.0.0.1", port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+        }
+
+        private String call(String command) throws IOException {
+            out.println(command);
+            String reply = in.readLine();
+            if (reply == null || !reply.startsWith("OK")) {
+                throw new IllegalStateException(command + " -> " + reply);
+            }
+            return reply;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.storage.StorageCodec;
+import dev.micartera.infrastructure.storage.StorageFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Форматы хранилища (app.storage.format): кодирование и разбор кошелька с историей и отдельной
+// записи журнала. Размеры закодированных данных печатаются при подготовке каждого набора параметров.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageFormatBenchmark {
+    @Param({"JSON", "SMILE"})
+    private StorageFormat format;
+
+    @Param({"1000"})
+    private int transactions;
+
+    private StorageCodec codec;
+    private Wallet wallet;
+    private Transaction transaction;
+    private byte[] encodedWallet;
+    private byte[] encodedTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        codec = StorageCodec.forFormat(format);
+        wallet = new DataGenerator().wallet(UUID.randomUUID(), transactions, 12);
+        transaction = wallet.getTransactionHistory().get(0);
+        encodedWallet = codec.toBytes(wallet);
+        encodedTransaction = codec.toBytes(transaction);
+        System.out.printf("%n%s: wallet %d bytes (%d transactions), transaction record %d bytes%n",
+                format, encodedWallet.length, transactions, encodedTransaction.length + 1);
+    }
+
+    @Benchmark
+    public byte[] encodeWallet() throws IOException {
+        return codec.toBytes(wallet);
+    }
+
+    @Benchmark
+    public Wallet decodeWallet() throws IOException {
+        return codec.fromBytes(encodedWallet, Wallet.class);
+    }
+
+    @Benchmark
+    public byte[] encodeTransaction() throws IOException {
+        return codec.toBytes(transaction);
+    }
+
+    @Benchmark
+    public Transaction decodeTransaction() throws IOException {
+        return codec.fromBytes(encodedTransaction, Transaction.class);
+    }
+}
@@ -0,0 +1,90 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.Category;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.domain.service.NotificationService;
+import dev.micartera.domain.service.TransactionService;
+import dev.micartera.domain.service.TransferEngine;
+import dev.micartera.domain.service.ValidationService;
+import dev.micartera.domain.service.WalletService;
+import dev.micartera.infrastructure.repository.impl.TransactionRepositoryImpl;
+import dev.micartera.infrastructure.repository.impl.UserRepositoryImpl;
+import dev.micartera.infrastructure.repository.impl.WalletRepositoryImpl;
+import dev.micartera.presentation.service.SessionState;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// История и итоги за период для пользователя с большой историей (10 лет операций)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionServiceBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000"})
+    private int transactions;
+
+    private BenchmarkStorage storage;
+    private TransactionService transactionService;
+    private WalletService walletService;
+    private Category category;
+    private LocalDateTime monthAgo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        DataGenerator generator = new DataGenerator();
+        UserRepositoryImpl userRepository = new UserRepositoryImpl();
+        WalletRepositoryImpl walletRepository = new WalletRepositoryImpl();
+        User user = generator.users(1).get(0);
+        userRepository.save(user);
+        Wallet wallet = generator.wallet(user.getId(), transactions, 120);
+        walletRepository.save(wallet);
+        walletRepository.appendTransactions(wallet.getUserId(), wallet.getTransactionHistory());
+        category = wallet.getCategories().get(1);
+
+        SessionState sessionState = new SessionState(walletRepository, userRepository);
+        sessionState.setCurrentSession(user.getId());
+        walletService = new WalletService(walletRepository, new ValidationService(),
+                new NotificationService(sessionState), sessionState);
+        TransactionRepositoryImpl transactionRepository = new TransactionRepositoryImpl();
+        transactionService = new TransactionService(walletService, sessionState, transactionRepository,
+                new TransferEngine(userRepository, walletRepository, transactionRepository, new ValidationService()));
+        monthAgo = LocalDateTime.now().minusMonths(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.delete();
+    }
+
+    @Benchmark
+    public List<Transaction> lastMonthFirstPage() {
+        return transactionService.getTransactionHistoryPage(monthAgo, LocalDateTime.now(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> allTimeFirstPage() {
+        return transactionService.getTransactionHistoryPage(LocalDateTime.MIN, LocalDateTime.now(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Map<Transaction.TransactionType, BigDecimal> lastMonthTotals() {
+        return transactionService.getTransactionTotals(monthAgo, LocalDateTime.now());
+    }
+
+    @Benchmark
+    public BigDecimal categoryMonthTotal() {
+        return walletService.getCategoryMonthTotal(category);
+    }
+}
@@ -0,0 +1,89 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.TransferBatchReport;
+import dev.micartera.domain.model.TransferOrder;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.domain.service.TransferEngine;
+import dev.micartera.domain.service.ValidationService;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.Repositories;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Выплата recipients получателям: одной заявкой (createBatch) против перевода на каждого
+// получателя по отдельности (create). Переводы остаются ожидающими, баланс отправителя
+// рассчитан на все итерации.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TransferBatchBenchmark {
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"files", "h2"})
+    private String backend;
+
+    @Param({"100", "500"})
+    private int recipients;
+
+    @Param({"write-behind,cache"})
+    private String decorators;
+
+    private BenchmarkStorage storage;
+    private Repositories repositories;
+    private TransferEngine engine;
+    private User sender;
+    private List<TransferOrder> orders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        ApplicationConfig.setProperty("app.storage.jdbc.url",
+                "jdbc:h2:file:" + storage.getRoot().resolve("db").resolve("bench"));
+        repositories = Repositories.create(backend, Arrays.asList(decorators.split(",")));
+        List<User> users = new DataGenerator().users(recipients + 1);
+        repositories.getUserRepository().saveAll(users);
+        for (User user : users) {
+            repositories.getWalletRepository().save(new Wallet(user.getId()));
+        }
+        sender = users.get(recipients);
+        Wallet wallet = repositories.getWalletRepository().findByUserId(sender.getId()).orElseThrow();
+        wallet.setBalance(new BigDecimal("1000000000.00"));
+        repositories.getWalletRepository().saveHeader(wallet);
+        orders = users.subList(0, recipients).stream()
+                .map(user -> new TransferOrder(user.getLogin(), AMOUNT))
+                .toList();
+        engine = new TransferEngine(repositories.getUserRepository(), repositories.getWalletRepository(),
+                repositories.getTransactionRepository(), new ValidationService());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repositories.close();
+        storage.delete();
+    }
+
+    @Benchmark
+    public TransferBatchReport batch() {
+        TransferBatchReport report = engine.createBatch(sender.getId(), null, orders, null);
+        if (report.getCreated() != recipients) {
+            throw new IllegalStateException("Batch lines rejected: " + report.getFailures());
+        }
+        return report;
+    }
+
+    @Benchmark
+    public int oneByOne() {
+        for (TransferOrder order : orders) {
+            engine.create(sender.getId(), null, order.getLogin(), order.getAmount(), null);
+        }
+        return orders.size();
+    }
+}
@@ -0,0 +1,104 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.exception.ValidationException;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.domain.service.TransferEngine;
+import dev.micartera.domain.service.ValidationService;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.Repositories;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Поток переводов между случайными парами пользователей (в обе стороны - проверка порядка
+// блокировок): создание и прием получателем. После прогона сумма балансов должна совпасть
+// с начальной, а активных переводов не должно остаться.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(8)
+@Fork(1)
+public class TransferBenchmark {
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"files", "h2"})
+    private String backend;
+
+    @Param({"16", "256"})
+    private int users;
+
+    @Param({"write-behind,cache"})
+    private String decorators;
+
+    private BenchmarkStorage storage;
+    private Repositories repositories;
+    private TransferEngine engine;
+    private List<User> accounts;
+    private final AtomicLong retries = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        ApplicationConfig.setProperty("app.storage.jdbc.url",
+                "jdbc:h2:file:" + storage.getRoot().resolve("db").resolve("bench"));
+        repositories = Repositories.create(backend, Arrays.asList(decorators.split(",")));
+        accounts = new DataGenerator().users(users);
+        repositories.getUserRepository().saveAll(accounts);
+        for (User user : accounts) {
+            Wallet wallet = new Wallet(user.getId());
+            wallet.setBalance(INITIAL_BALANCE);
+            repositories.getWalletRepository().save(wallet);
+        }
+        engine = new TransferEngine(repositories.getUserRepository(), repositories.getWalletRepository(),
+                repositories.getTransactionRepository(), new ValidationService());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            BigDecimal total = BigDecimal.ZERO;
+            int pending = 0;
+            for (User user : accounts) {
+                Wallet wallet = repositories.getWalletRepository().findByUserId(user.getId()).orElseThrow();
+                total = total.add(wallet.getBalance());
+                pending += wallet.getActiveTransactions().size();
+            }
+            BigDecimal expected = INITIAL_BALANCE.multiply(BigDecimal.valueOf(users));
+            if (total.compareTo(expected) != 0 || pending != 0) {
+                throw new IllegalStateException("Transfers are not balanced: total " + total + ", expected "
+                        + expected + ", pending " + pending);
+            }
+            System.out.println("\nconflicts retried: " + retries.get());
+        } finally {
+            repositories.close();
+            storage.delete();
+        }
+    }
+
+    @Benchmark
+    public Transaction transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(users);
+        int to = (from + 1 + random.nextInt(users - 1)) % users;
+        User sender = accounts.get(from);
+        User receiver = accounts.get(to);
+        while (true) {
+            try {
+                Transaction transfer = engine.create(sender.getId(), null, receiver.getLogin(), AMOUNT, null);
+                return engine.approve(receiver.getId(), null, transfer.getId());
+            } catch (ValidationException e) {
+                retries.incrementAndGet();
+            }
+        }
+    }
+}
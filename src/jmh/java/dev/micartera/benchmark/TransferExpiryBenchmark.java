@@ -0,0 +1,113 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.domain.service.TransferEngine;
+import dev.micartera.domain.service.TransferExpirySweeper;
+import dev.micartera.domain.service.ValidationService;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.Repositories;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Отмена истекших переводов: перед каждой итерацией создается pending переводов от senders
+// отправителей со сроком 1 мс, замеряется время проходов планировщика до полной отмены.
+// Переводы одного отправителя в пачке отменяются одной записью его кошелька, поэтому
+// чем меньше отправителей, тем дешевле пачка. После итерации все суммы должны вернуться.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TransferExpiryBenchmark {
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"files", "h2"})
+    private String backend;
+
+    @Param({"2000"})
+    private int pending;
+
+    @Param({"1", "64"})
+    private int senders;
+
+    @Param({"50", "500"})
+    private int batchSize;
+
+    @Param({"write-behind,cache"})
+    private String decorators;
+
+    private BenchmarkStorage storage;
+    private Repositories repositories;
+    private TransferEngine engine;
+    private TransferExpirySweeper sweeper;
+    private List<User> accounts;
+    private User receiver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        ApplicationConfig.setProperty("app.storage.jdbc.url",
+                "jdbc:h2:file:" + storage.getRoot().resolve("db").resolve("bench"));
+        repositories = Repositories.create(backend, Arrays.asList(decorators.split(",")));
+        accounts = new DataGenerator().users(senders + 1);
+        repositories.getUserRepository().saveAll(accounts);
+        for (User user : accounts) {
+            Wallet wallet = new Wallet(user.getId());
+            wallet.setBalance(INITIAL_BALANCE);
+            repositories.getWalletRepository().save(wallet);
+        }
+        receiver = accounts.get(senders);
+        engine = new TransferEngine(repositories.getUserRepository(), repositories.getWalletRepository(),
+                repositories.getTransactionRepository(), new ValidationService(), Duration.ofMillis(1));
+        // Интервал не важен: проходы вызываются из замера
+        sweeper = new TransferExpirySweeper(engine, 3600, batchSize);
+    }
+
+    @Setup(Level.Iteration)
+    public void createPending() throws InterruptedException {
+        for (int i = 0; i < pending; i++) {
+            engine.create(accounts.get(i % senders).getId(), null, receiver.getLogin(), AMOUNT, null);
+        }
+        Thread.sleep(5);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        int active = 0;
+        for (int i = 0; i < senders; i++) {
+            Wallet wallet = repositories.getWalletRepository().findByUserId(accounts.get(i).getId()).orElseThrow();
+            if (wallet.getBalance().compareTo(INITIAL_BALANCE) != 0) {
+                throw new IllegalStateException("Expired transfers were not refunded: " + wallet.getBalance());
+            }
+            active += wallet.getActiveTransactions().size();
+        }
+        int incoming = repositories.getTransactionRepository().countIncomingTransfers(receiver.getId());
+        if (active != 0 || incoming != 0) {
+            throw new IllegalStateException("Transfers left after expiry: active " + active + ", incoming " + incoming);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("\nticks: " + sweeper.getTicks() + ", expired: " + sweeper.getTotalExpired());
+        sweeper.close();
+        repositories.close();
+        storage.delete();
+    }
+
+    @Benchmark
+    public long expireAll() {
+        while (sweeper.tick() > 0) {
+            // до пустой очереди
+        }
+        return sweeper.getTotalExpired();
+    }
+}
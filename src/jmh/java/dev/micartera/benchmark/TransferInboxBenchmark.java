@@ -0,0 +1,70 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.infrastructure.storage.FsyncPolicy;
+import dev.micartera.infrastructure.storage.StorageFormat;
+import dev.micartera.infrastructure.storage.TransferInbox;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Очередь входящих переводов пользователя с тысячами ожидающих записей:
+// число ожидающих, первая страница и поступление + обработка одного перевода
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransferInboxBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "10000"})
+    private int pending;
+
+    private BenchmarkStorage storage;
+    private TransferInbox inbox;
+    private final UUID userId = UUID.randomUUID();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        inbox = TransferInbox.create(storage.getRoot().resolve("transfers"), StorageFormat.JSON, FsyncPolicy.NEVER,
+                1000, 64);
+        for (int i = 0; i < pending; i++) {
+            inbox.append(userId, true, transfer());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        inbox.close();
+        storage.delete();
+    }
+
+    @Benchmark
+    public int countPending() {
+        return inbox.count(userId, true);
+    }
+
+    @Benchmark
+    public List<TransferFile> firstPage() {
+        return inbox.peek(userId, true, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public boolean receiveAndConsume() {
+        TransferFile transfer = transfer();
+        inbox.append(userId, true, transfer);
+        return inbox.remove(userId, true, transfer.getTransactionId());
+    }
+
+    private TransferFile transfer() {
+        return new TransferFile(UUID.randomUUID(), LocalDateTime.now(), "sender", "receiver", userId,
+                new BigDecimal("10.00"), null);
+    }
+}
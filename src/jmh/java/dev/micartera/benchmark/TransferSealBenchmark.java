@@ -0,0 +1,57 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.infrastructure.security.TransferSealer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.AEADBadTagException;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность запечатывания и проверки AES-GCM в зависимости от размера содержимого.
+// Буферы состояния потока переиспользуются между вызовами, как при обработке пачки переводов;
+// байты в секунду - payloadBytes, умноженное на ops/s.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TransferSealBenchmark {
+    @Param({"64", "256", "1024", "4096", "16384"})
+    private int payloadBytes;
+
+    private TransferSealer sealer;
+    private ByteBuffer plaintext;
+    private ByteBuffer aad;
+    private ByteBuffer sealed;
+    private ByteBuffer sealedRecord;
+    private ByteBuffer opened;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SecureRandom random = new SecureRandom();
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        sealer = new TransferSealer(key);
+        byte[] payload = new byte[payloadBytes];
+        random.nextBytes(payload);
+        plaintext = ByteBuffer.wrap(payload);
+        aad = ByteBuffer.allocate(32).putLong(1).putLong(2).putLong(3).putLong(4).flip();
+        sealed = ByteBuffer.allocate(payloadBytes + TransferSealer.OVERHEAD);
+        opened = ByteBuffer.allocate(payloadBytes + TransferSealer.OVERHEAD);
+        sealedRecord = ByteBuffer.allocate(payloadBytes + TransferSealer.OVERHEAD);
+        sealer.seal(plaintext.rewind(), aad.rewind(), sealedRecord);
+        sealedRecord.flip();
+    }
+
+    @Benchmark
+    public int seal() {
+        return sealer.seal(plaintext.rewind(), aad.rewind(), sealed.clear());
+    }
+
+    @Benchmark
+    public int open() throws AEADBadTagException {
+        return sealer.open(sealedRecord.rewind(), aad.rewind(), opened.clear());
+    }
+}
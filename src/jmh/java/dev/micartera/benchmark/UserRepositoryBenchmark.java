@@ -0,0 +1,57 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.User;
+import dev.micartera.infrastructure.repository.impl.UserRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Поиск пользователя по логину через индекс logins.idx в зависимости от числа пользователей
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRepositoryBenchmark {
+    @Param({"100", "10000"})
+    private int users;
+
+    private BenchmarkStorage storage;
+    private UserRepositoryImpl repository;
+    private List<String> logins;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        repository = new UserRepositoryImpl();
+        List<User> generated = new DataGenerator().users(users);
+        generated.forEach(repository::save);
+        logins = generated.stream().map(User::getLogin).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.delete();
+    }
+
+    @Benchmark
+    public Optional<User> findByLogin() {
+        next = (next + 1) % logins.size();
+        return repository.findByLogin(logins.get(next));
+    }
+
+    @Benchmark
+    public boolean existsByLoginMissing() {
+        return repository.existsByLogin("missing-user");
+    }
+
+    // Холодный старт: загрузка индекса логинов при создании репозитория
+    @Benchmark
+    public UserRepositoryImpl openRepository() {
+        return new UserRepositoryImpl();
+    }
+}
@@ -0,0 +1,127 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.exception.ValidationException;
+import dev.micartera.domain.model.Category;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.domain.service.NotificationService;
+import dev.micartera.domain.service.ValidationService;
+import dev.micartera.domain.service.WalletService;
+import dev.micartera.infrastructure.repository.Repositories;
+import dev.micartera.presentation.service.SessionState;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Нагрузочная проверка блокировок и версий кошелька: 8 потоков со своими сессиями добавляют доходы.
+// sharedWallet=true - все сессии одного пользователя; у каждой сессии свой экземпляр кошелька,
+// и конфликт версий приводит к повтору операции. После прогона баланс и история в хранилище
+// сверяются с числом успешных операций - потерянное обновление завершает прогон ошибкой
+// (та же проверка для двух наборов репозиториев - WalletServiceConcurrencyTest).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(8)
+@Fork(1)
+public class WalletConcurrencyBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(WalletConcurrencyBenchmark.class);
+    private static final int USERS = 8;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"false", "true"})
+    private boolean sharedWallet;
+
+    @Param({"write-behind,cache", "write-behind"})
+    private String decorators;
+
+    private BenchmarkStorage storage;
+    private Repositories repositories;
+    private final List<UUID> userIds = new ArrayList<>();
+    private final AtomicLong[] applied = new AtomicLong[USERS];
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        repositories = Repositories.create("files", Arrays.asList(decorators.split(",")));
+        List<User> users = new DataGenerator().users(USERS);
+        repositories.getUserRepository().saveAll(users);
+        for (int i = 0; i < USERS; i++) {
+            Wallet wallet = new Wallet(users.get(i).getId());
+            wallet.getCategories().add(new Category(UUID.randomUUID(), "salary", Category.CategoryType.INCOME));
+            repositories.getWalletRepository().save(wallet);
+            userIds.add(wallet.getUserId());
+            applied[i] = new AtomicLong();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repositories.close();
+        Repositories check = Repositories.create("files", List.of());
+        try {
+            for (int i = 0; i < USERS; i++) {
+                Wallet wallet = check.getWalletRepository().findByUserId(userIds.get(i)).orElseThrow();
+                long expected = applied[i].get();
+                long history;
+                try (Stream<Transaction> records = check.getWalletRepository().streamHistory(wallet.getUserId())) {
+                    history = records.count();
+                }
+                if (wallet.getBalance().compareTo(AMOUNT.multiply(BigDecimal.valueOf(expected))) != 0
+                        || history != expected) {
+                    throw new IllegalStateException("Lost update in wallet " + wallet.getUserId() + ": applied "
+                            + expected + ", stored balance " + wallet.getBalance() + ", history " + history);
+                }
+            }
+        } finally {
+            check.close();
+            storage.delete();
+        }
+        logger.info("Version conflicts retried: {}", conflicts.get());
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        private int user;
+        private WalletService walletService;
+        private Category category;
+
+        @Setup(Level.Trial)
+        public void open(WalletConcurrencyBenchmark benchmark) {
+            user = benchmark.sharedWallet ? 0 : benchmark.sessions.getAndIncrement() % USERS;
+            SessionState sessionState = new SessionState(benchmark.repositories.getWalletRepository(),
+                    benchmark.repositories.getUserRepository());
+            sessionState.setCurrentSession(benchmark.userIds.get(user));
+            walletService = new WalletService(benchmark.repositories.getWalletRepository(), new ValidationService(),
+                    new NotificationService(sessionState), sessionState);
+            category = sessionState.getCurrentWallet().getCategories().get(0);
+        }
+    }
+
+    @Benchmark
+    public void addIncome(Session session) {
+        while (true) {
+            try {
+                session.walletService.addIncome(AMOUNT, session.category, "stress");
+                applied[session.user].incrementAndGet();
+                return;
+            } catch (ValidationException e) {
+                conflicts.incrementAndGet();
+            }
+        }
+    }
+}
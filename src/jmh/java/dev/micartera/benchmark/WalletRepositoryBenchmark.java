@@ -0,0 +1,68 @@
+package dev.micartera.benchmark;
+
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.repository.impl.WalletRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Сохранение и загрузка кошелька в зависимости от размера истории
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalletRepositoryBenchmark {
+    @Param({"100", "10000"})
+    private int transactions;
+
+    private BenchmarkStorage storage;
+    private WalletRepositoryImpl repository;
+    private Wallet wallet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new BenchmarkStorage();
+        repository = new WalletRepositoryImpl();
+        wallet = new DataGenerator().wallet(UUID.randomUUID(), transactions, 24);
+        repository.save(wallet);
+        repository.appendTransactions(wallet.getUserId(), wallet.getTransactionHistory());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.delete();
+    }
+
+    // Запись заголовка без проверки версии
+    @Benchmark
+    public Wallet save() {
+        return repository.save(wallet);
+    }
+
+    @Benchmark
+    public Wallet saveHeader() {
+        return repository.saveHeader(wallet);
+    }
+
+    // Путь одной операции дохода/расхода: запись в журнал и заголовок
+    @Benchmark
+    public Wallet addOperation() {
+        Transaction transaction = new Transaction(UUID.randomUUID(), Transaction.TransactionType.EXPENSE,
+                BigDecimal.TEN, wallet.getCategories().get(1), LocalDateTime.now(),
+                Transaction.TransactionStatus.APPROVED, "bench", null, null, null);
+        return repository.saveHeader(wallet, List.of(transaction));
+    }
+
+    @Benchmark
+    public Optional<Wallet> findByUserId() {
+        return repository.findByUserId(wallet.getUserId());
+    }
+}
@@ -0,0 +1,37 @@
+package dev.micartera.presentation.menu;
+
+import dev.micartera.benchmark.DataGenerator;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Форматирование строки отчета; OutputFormatter доступен только внутри пакета меню
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputFormatterBenchmark {
+    private OutputFormatter formatter;
+    private List<Transaction> transactions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ApplicationConfig.initialize();
+        formatter = new OutputFormatter();
+        transactions = new DataGenerator().wallet(UUID.randomUUID(), 1000, 12).getTransactionHistory();
+    }
+
+    @Benchmark
+    public String formatTransaction() {
+        next = (next + 1) % transactions.size();
+        return formatter.formatTransaction(transactions.get(next));
+    }
+}
@@ -0,0 +1,21 @@
+package dev.micartera.domain.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+// Заголовок кошелька в хранилище изменен после того, как кошелек был прочитан
+@Getter
+public class WalletVersionConflictException extends RuntimeException {
+    private final UUID userId;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    public WalletVersionConflictException(UUID userId, long expectedVersion, long actualVersion) {
+        super("Wallet " + userId + " was modified concurrently: expected version " + expectedVersion
+                + ", found " + actualVersion);
+        this.userId = userId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+}
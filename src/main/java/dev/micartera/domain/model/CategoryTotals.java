@@ -0,0 +1,53 @@
+package dev.micartera.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Суммы операций по категориям за каждый месяц: categoryId -> (месяц -> сумма).
+// Обновляется при каждом доходе/расходе и хранится в заголовке кошелька.
+@Data
+public class CategoryTotals {
+    private Map<UUID, Map<YearMonth, BigDecimal>> totals;
+
+    public CategoryTotals() {
+        this.totals = new HashMap<>();
+    }
+
+    @JsonCreator
+    public CategoryTotals(@JsonProperty("totals") Map<UUID, Map<YearMonth, BigDecimal>> totals) {
+        this.totals = totals != null ? totals : new HashMap<>();
+    }
+
+    public void add(Transaction transaction) {
+        if (transaction.getCategory() == null || transaction.getCreated() == null) {
+            return;
+        }
+        totals.computeIfAbsent(transaction.getCategory().getId(), id -> new HashMap<>())
+                .merge(YearMonth.from(transaction.getCreated()), transaction.getAmount(), BigDecimal::add);
+    }
+
+    public BigDecimal get(UUID categoryId, YearMonth month) {
+        return totals.getOrDefault(categoryId, Map.of()).getOrDefault(month, BigDecimal.ZERO);
+    }
+
+    public CategoryTotals copy() {
+        Map<UUID, Map<YearMonth, BigDecimal>> copy = new HashMap<>();
+        totals.forEach((categoryId, months) -> copy.put(categoryId, new HashMap<>(months)));
+        return new CategoryTotals(copy);
+    }
+
+    // Пересчет по истории - для кошельков, сохраненных до появления сумм
+    public static CategoryTotals fromHistory(Stream<Transaction> history) {
+        CategoryTotals categoryTotals = new CategoryTotals();
+        history.forEach(categoryTotals::add);
+        return categoryTotals;
+    }
+}
@@ -0,0 +1,23 @@
+package dev.micartera.domain.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Позиция в истории транзакций для постраничного чтения: (дата создания, id) последней выданной записи
+@Data
+public class HistoryCursor {
+    private final LocalDateTime created;
+    private final UUID id;
+
+    public static HistoryCursor after(Transaction transaction) {
+        return new HistoryCursor(transaction.getCreated(), transaction.getId());
+    }
+
+    // Идет ли транзакция после курсора при чтении от новых к старым
+    public boolean isFollowedBy(Transaction transaction) {
+        int byDate = transaction.getCreated().compareTo(created);
+        return byDate < 0 || byDate == 0 && transaction.getId().compareTo(id) < 0;
+    }
+}
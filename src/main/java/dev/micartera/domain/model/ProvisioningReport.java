@@ -0,0 +1,27 @@
+package dev.micartera.domain.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Итог массовой регистрации: созданные пользователи, отклоненные записи и скорость обработки
+@Data
+public class ProvisioningReport {
+    private int processed;
+    private int created;
+    private long elapsedMs;
+    private final List<Failure> failures = new ArrayList<>();
+
+    public double getUsersPerSecond() {
+        return elapsedMs == 0 ? created : created * 1000.0 / elapsedMs;
+    }
+
+    @Data
+    public static class Failure {
+        // номер строки CSV или записи JSON, начиная с 1
+        private final int record;
+        private final String login;
+        private final String reason;
+    }
+}
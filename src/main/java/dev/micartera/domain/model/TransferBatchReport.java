@@ -0,0 +1,38 @@
+package dev.micartera.domain.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Итог массового перевода: по строке на каждую строку заявки - созданный перевод либо причина отказа
+@Data
+public class TransferBatchReport {
+    // сумма, зарезервированная на кошельке отправителя этой заявкой (без повторов)
+    private BigDecimal debited = BigDecimal.ZERO;
+    private long elapsedMs;
+    private final List<Line> lines = new ArrayList<>();
+
+    public long getCreated() {
+        return lines.stream().filter(Line::isAccepted).count();
+    }
+
+    public List<Line> getFailures() {
+        return lines.stream().filter(line -> !line.isAccepted()).toList();
+    }
+
+    @Data
+    public static class Line {
+        // номер строки заявки, начиная с 1
+        private final int line;
+        private final String login;
+        private final BigDecimal amount;
+        private Transaction transfer;
+        private String error;
+
+        public boolean isAccepted() {
+            return transfer != null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package dev.micartera.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// Строка массового перевода: логин получателя и сумма
+@Data
+public class TransferOrder {
+    private final String login;
+    private final BigDecimal amount;
+
+    @JsonCreator
+    public TransferOrder(@JsonProperty("login") String login,
+                         @JsonProperty("amount") BigDecimal amount) {
+        this.login = login;
+        this.amount = amount;
+    }
+}
@@ -26,4 +26,8 @@ public class User {
         this.passwordHash = passwordHash;
         this.created = created;
     }
+
+    public User copy() {
+        return new User(id, login, passwordHash, created);
+    }
 }
@@ -0,0 +1,19 @@
+package dev.micartera.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+// Строка выгрузки для массовой регистрации: логин и пароль в открытом виде
+@Data
+public class UserRegistration {
+    private final String login;
+    private final String password;
+
+    @JsonCreator
+    public UserRegistration(@JsonProperty("login") String login,
+                            @JsonProperty("password") String password) {
+        this.login = login;
+        this.password = password;
+    }
+}
@@ -16,7 +16,11 @@ public class Wallet {
     private List<Category> categories;
     private Map<UUID, Budget> budgets;
     private List<Transaction> activeTransactions;
+    // Из хранилища кошелек читается без истории: здесь только транзакции, записанные через этот экземпляр
     private List<Transaction> transactionHistory;
+    private CategoryTotals categoryTotals;
+    // Версия заголовка в хранилище: растет при каждом сохранении, см. WalletRepository.saveHeader
+    private long version;
 
     public Wallet(UUID userId) {
         this.userId = userId;
@@ -25,6 +29,7 @@ public class Wallet {
         this.budgets = new HashMap<>();
         this.activeTransactions = new ArrayList<>();
         this.transactionHistory = new ArrayList<>();
+        this.categoryTotals = new CategoryTotals();
     }
 
     @JsonCreator
@@ -34,7 +39,8 @@ public class Wallet {
             @JsonProperty("categories") List<Category> categories,
             @JsonProperty("budgets") Map<UUID, Budget> budgets,
             @JsonProperty("activeTransactions") List<Transaction> activeTransactions,
-            @JsonProperty("transactionHistory") List<Transaction> transactionHistory
+            @JsonProperty("transactionHistory") List<Transaction> transactionHistory,
+            @JsonProperty("categoryTotals") CategoryTotals categoryTotals
     ) {
         this.userId = userId;
         this.balance = balance;
@@ -42,5 +48,37 @@ public class Wallet {
         this.budgets = budgets;
         this.activeTransactions = activeTransactions;
         this.transactionHistory = transactionHistory;
+        this.categoryTotals = categoryTotals;
     }
-}
\ No newline at end of file
+
+    // Копия заголовка со своими коллекциями и бюджетами (их суммы меняются на месте), без истории
+    public Wallet copy() {
+        Map<UUID, Budget> budgetsCopy = new HashMap<>();
+        if (budgets != null) {
+            budgets.forEach((categoryId, budget) -> budgetsCopy.put(categoryId, new Budget(budget.getCategoryId(),
+                    budget.getLimit(), budget.getSpent(), budget.isEnabled(), budget.getSetAtDate())));
+        }
+        Wallet copy = new Wallet(userId, balance,
+                categories != null ? new ArrayList<>(categories) : new ArrayList<>(),
+                budgetsCopy,
+                activeTransactions != null ? new ArrayList<>(activeTransactions) : new ArrayList<>(),
+                new ArrayList<>(),
+                categoryTotals != null ? categoryTotals.copy() : null);
+        copy.setVersion(version);
+        return copy;
+    }
+
+    // Перенос сохраненного черновика (copy) в этот экземпляр: заголовок и версия заменяются,
+    // транзакции черновика дописываются в историю
+    public void updateFrom(Wallet draft) {
+        balance = draft.getBalance();
+        categories = draft.getCategories();
+        budgets = draft.getBudgets();
+        activeTransactions = draft.getActiveTransactions();
+        categoryTotals = draft.getCategoryTotals();
+        version = draft.getVersion();
+        if (draft.getTransactionHistory() != null) {
+            transactionHistory.addAll(draft.getTransactionHistory());
+        }
+    }
+}
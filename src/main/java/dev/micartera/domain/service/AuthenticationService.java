@@ -4,25 +4,34 @@ package dev.micartera.domain.service;
 import dev.micartera.domain.exception.AuthenticationException;
 import dev.micartera.domain.model.User;
 import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.security.PasswordHasher;
 import dev.micartera.presentation.service.SessionState;
-import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class AuthenticationService {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
     private final SessionState sessionState;
     private final UserRepository userRepository;
     private final ValidationService validationService;
+    private final PasswordHasher passwordHasher;
 
     public AuthenticationService(SessionState sessionState, UserRepository userRepository, ValidationService validationService) {
+        this(sessionState, userRepository, validationService, PasswordHasher.configured());
+    }
+
+    public AuthenticationService(SessionState sessionState, UserRepository userRepository,
+                                 ValidationService validationService, PasswordHasher passwordHasher) {
         this.sessionState = sessionState;
         this.userRepository = userRepository;
         this.validationService = validationService;
+        this.passwordHasher = passwordHasher;
     }
 
     public User register(String login, String password) {
@@ -39,7 +48,7 @@ public class AuthenticationService {
         User user = User.builder()
                 .id(UUID.randomUUID())
                 .login(login)
-                .passwordHash(BCrypt.hashpw(password, BCrypt.gensalt()))
+                .passwordHash(passwordHasher.hash(password))
                 .created(LocalDateTime.now())
                 .build();
 
@@ -47,27 +56,61 @@ public class AuthenticationService {
     }
 
     public Optional<User> authenticate(String login, String password) {
+        try {
+            return authenticateAsync(login, password).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Проверка пароля в пуле PasswordHasher; вызывающий поток не занят расчетом bcrypt
+    public CompletableFuture<Optional<User>> authenticateAsync(String login, String password) {
         logger.debug("Попытка аутентификации пользователя: {}", login);
         Optional<User> user = userRepository.findByLogin(login);
-        user.orElseThrow(() -> new AuthenticationException("Пользователь не найден"));
-        user = user.filter(u -> BCrypt.checkpw(password, u.getPasswordHash()));
-        if (user.isPresent()) {
-            logger.info("Успешная аутентификация пользователя: {}", login);
-        } else {
-            logger.warn("Неудачная попытка аутентификации: {}", login);
+        if (user.isEmpty()) {
+            return CompletableFuture.failedFuture(new AuthenticationException("Пользователь не найден"));
         }
-        return user;
+        return passwordHasher.verifyAsync(password, user.get().getPasswordHash())
+                .thenCompose(valid -> {
+                    if (!valid) {
+                        logger.warn("Неудачная попытка аутентификации: {}", login);
+                        return CompletableFuture.completedFuture(Optional.<User>empty());
+                    }
+                    logger.info("Успешная аутентификация пользователя: {}", login);
+                    return rehashIfNeeded(user.get(), password).thenApply(Optional::of);
+                });
     }
 
     public void changePassword(UUID userId, String newPassword) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new AuthenticationException("Пользователь не найден"));
 
-        String newPasswordHash = BCrypt.hashpw(newPassword, BCrypt.gensalt());
+        String newPasswordHash = passwordHasher.hash(newPassword);
         user.setPasswordHash(newPasswordHash);
 
         userRepository.save(user);
         sessionState.setCurrentSession(userId);
         logger.info("Пароль успешно изменен для пользователя: {}", user.getLogin());
     }
-}
\ No newline at end of file
+
+    // Хеш со стоимостью, отличной от security.password.bcrypt.cost, пересчитывается при успешном входе
+    private CompletableFuture<User> rehashIfNeeded(User user, String password) {
+        if (!passwordHasher.needsRehash(user.getPasswordHash())) {
+            return CompletableFuture.completedFuture(user);
+        }
+        return passwordHasher.hashAsync(password).thenApply(hash -> {
+            user.setPasswordHash(hash);
+            try {
+                userRepository.save(user);
+                logger.info("Хеш пароля пересчитан со стоимостью {}: {}", passwordHasher.getCost(), user.getLogin());
+            } catch (RuntimeException e) {
+                // вход не должен срываться из-за записи; попробуем при следующем входе
+                logger.warn("Не удалось сохранить пересчитанный хеш пароля: {}", user.getLogin(), e);
+            }
+            return user;
+        });
+    }
+}
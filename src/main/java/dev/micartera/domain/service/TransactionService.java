@@ -1,56 +1,178 @@
 package dev.micartera.domain.service;
 
+import dev.micartera.domain.exception.ValidationException;
+import dev.micartera.domain.exception.WalletVersionConflictException;
+import dev.micartera.domain.model.HistoryCursor;
 import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.TransferBatchReport;
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.domain.model.TransferOrder;
 import dev.micartera.domain.model.User;
 import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.repository.TransactionRepository;
 import dev.micartera.presentation.service.SessionState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TransactionService {
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
+    private static final String ORDERS_CSV_HEADER = "login,amount";
     private final WalletService walletService;
     private final SessionState sessionState;
+    private final TransactionRepository transactionRepository;
 
-    public TransactionService(WalletService walletService, SessionState sessionState) {
+    private final TransferEngine transferEngine;
+
+    public TransactionService(WalletService walletService, SessionState sessionState,
+                              TransactionRepository transactionRepository, TransferEngine transferEngine) {
         this.walletService = walletService;
         this.sessionState = sessionState;
+        this.transactionRepository = transactionRepository;
+        this.transferEngine = transferEngine;
+    }
+
+    public Transaction createTransfer(UUID fromUserId, String toUserLogin, BigDecimal amount) {
+        return createTransfer(fromUserId, toUserLogin, amount, null);
+    }
+
+    // Повтор с тем же ключом идемпотентности не создает второй перевод
+    public Transaction createTransfer(UUID fromUserId, String toUserLogin, BigDecimal amount, String idempotencyKey) {
+        return inSession(fromUserId,
+                () -> transferEngine.create(fromUserId, sessionWallet(fromUserId), toUserLogin, amount, idempotencyKey));
+    }
+
+    // Массовый перевод по заявке: по строке отчета на каждую строку заявки
+    public TransferBatchReport createTransfers(UUID fromUserId, List<TransferOrder> orders, String idempotencyKey) {
+        return inSession(fromUserId,
+                () -> transferEngine.createBatch(fromUserId, sessionWallet(fromUserId), orders, idempotencyKey));
+    }
+
+    // Заявка на массовый перевод в CSV "login,amount"; пустые строки, комментарии (#) и заголовок
+    // пропускаются. Сумма, которую нельзя разобрать, остается пустой - такая строка будет отклонена.
+    public List<TransferOrder> readTransferOrders(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        List<TransferOrder> orders = new ArrayList<>();
+        String text;
+        while ((text = reader.readLine()) != null) {
+            if (text.isBlank() || text.startsWith("#")
+                    || (orders.isEmpty() && text.trim().equalsIgnoreCase(ORDERS_CSV_HEADER))) {
+                continue;
+            }
+            int comma = text.indexOf(',');
+            String login = (comma < 0 ? text : text.substring(0, comma)).trim();
+            BigDecimal amount = null;
+            if (comma >= 0) {
+                try {
+                    amount = new BigDecimal(text.substring(comma + 1).trim());
+                } catch (NumberFormatException e) {
+                    // строка будет отклонена с причиной "Некорректная сумма перевода"
+                }
+            }
+            orders.add(new TransferOrder(login, amount));
+        }
+        return orders;
+    }
+
+    public Transaction approveTransfer(UUID userId, UUID transferId) {
+        return inSession(userId, () -> transferEngine.approve(userId, sessionWallet(userId), transferId));
+    }
+
+    public Transaction rejectTransfer(UUID userId, UUID transferId) {
+        return inSession(userId, () -> transferEngine.reject(userId, transferId));
+    }
+
+    public Transaction cancelTransfer(UUID userId, UUID transferId) {
+        return inSession(userId, () -> transferEngine.cancel(userId, sessionWallet(userId), transferId));
+    }
+
+    public List<TransferFile> getIncomingTransfers(int offset, int limit) {
+        return transferEngine.incomingTransfers(sessionState.getCurrentUser().getId(), offset, limit);
     }
 
-    // Заглушки для методов переводов
-    public void createTransfer(UUID fromUserId, String toUserLogin, BigDecimal amount) {
-        throw new UnsupportedOperationException("Переводы временно недоступны");
+    public int countIncomingTransfers() {
+        return transferEngine.countIncomingTransfers(sessionState.getCurrentUser().getId());
     }
 
-    public void approveTransfer(UUID userId, UUID transferId) {
-        throw new UnsupportedOperationException("Переводы временно недоступны");
+    // Исходящие переводы, еще не обработанные получателем
+    public List<Transaction> getOutgoingTransfers() {
+        return sessionState.getCurrentWallet().getActiveTransactions().stream()
+                .filter(t -> t.getType() == Transaction.TransactionType.TRANSFER)
+                .collect(Collectors.toList());
     }
 
-    public void rejectTransfer(UUID userId, UUID transferId) {
-        throw new UnsupportedOperationException("Переводы временно недоступны");
+    // Завершенные переводы пользователя (отправленные и полученные), по возрастанию даты
+    public List<Transaction> getTransferHistory() {
+        User user = sessionState.getCurrentUser();
+        walletService.flushPendingChanges();
+        try (Stream<Transaction> transactions =
+                     transactionRepository.streamTransactionHistoryByUserId(user.getId(), LocalDateTime.MIN,
+                             LocalDateTime.now())) {
+            return transactions.filter(t -> t.getType() == Transaction.TransactionType.TRANSFER
+                            && t.getStatus() != Transaction.TransactionStatus.PENDING)
+                    .collect(Collectors.toList());
+        }
     }
 
-    public List<Transaction> getTransactionHistory(LocalDateTime startDate, LocalDateTime endDate) {
+    private Wallet sessionWallet(UUID userId) {
         User user = sessionState.getCurrentUser();
-        logger.debug("Запрос истории транзакций: userId={}, период: {} - {}", user.getLogin(), startDate, endDate);
+        return user != null && user.getId().equals(userId) ? sessionState.getCurrentWallet() : null;
+    }
 
-        Wallet wallet = sessionState.getCurrentWallet();
+    // Конфликт версий кошелька: данные сессии перечитываются, операцию нужно повторить
+    private <T> T inSession(UUID userId, Supplier<T> operation) {
         try {
-            List<Transaction> transactions = wallet.getTransactionHistory().stream()
-                    .filter(tx -> !tx.getCreated().isBefore(startDate) && !tx.getCreated().isAfter(endDate))
-                    .sorted(Comparator.comparing(Transaction::getCreated).reversed())
-                    .toList();
-            logger.info("История транзакций успешно получена для пользователя: {}", user.getLogin());
-            return transactions;
+            return operation.get();
+        } catch (WalletVersionConflictException e) {
+            logger.warn("Конфликт версий кошелька при переводе: {}", e.getMessage());
+            if (sessionWallet(userId) != null) {
+                sessionState.setCurrentSession(userId);
+            }
+            throw new ValidationException("Кошелек изменен в другой сессии, данные обновлены. Повторите операцию");
+        }
+    }
+
+    // Страница истории за период от новых к старым; следующая страница - после последней записи текущей
+    public List<Transaction> getTransactionHistoryPage(LocalDateTime startDate, LocalDateTime endDate,
+                                                       HistoryCursor after, int pageSize) {
+        User user = sessionState.getCurrentUser();
+        logger.debug("Запрос страницы истории транзакций: userId={}, период: {} - {}, после: {}",
+                user.getLogin(), startDate, endDate, after);
+        try {
+            if (after == null) {
+                walletService.flushPendingChanges();
+            }
+            return transactionRepository.findTransactionHistoryPage(user.getId(), startDate, endDate, after, pageSize);
         } catch (Exception e) {
             logger.error("Ошибка при получении истории транзакций", e);
             throw e;
         }
     }
+
+    // Суммы по типам транзакций за период: история читается потоком, без загрузки в память
+    public Map<Transaction.TransactionType, BigDecimal> getTransactionTotals(LocalDateTime startDate,
+                                                                           LocalDateTime endDate) {
+        User user = sessionState.getCurrentUser();
+        walletService.flushPendingChanges();
+        Map<Transaction.TransactionType, BigDecimal> totals = new EnumMap<>(Transaction.TransactionType.class);
+        try (Stream<Transaction> transactions =
+                     transactionRepository.streamTransactionHistoryByUserId(user.getId(), startDate, endDate)) {
+            transactions.forEach(t -> totals.merge(t.getType(), t.getAmount(), BigDecimal::add));
+        }
+        logger.info("История транзакций успешно получена для пользователя: {}", user.getLogin());
+        return totals;
+    }
 }
\ No newline at end of file
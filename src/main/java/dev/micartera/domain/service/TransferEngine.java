@@ -0,0 +1,520 @@
+package dev.micartera.domain.service;
+
+import dev.micartera.domain.exception.ValidationException;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.TransferBatchReport;
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.domain.model.TransferOrder;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.TransactionRepository;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.security.TransferSealer;
+import dev.micartera.infrastructure.util.StripedLocks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Переводы между пользователями. Жизненный цикл: PENDING -> APPROVED | REJECTED | CANCELLED.
+// При создании сумма резервируется (списывается с баланса отправителя) и перевод хранится
+// в активных транзакциях его кошелька - это и есть признак "перевод еще не обработан";
+// получатель видит перевод во входящих, отправитель - в исходящих.
+// Проведение меняет оба кошелька под блокировками обоих владельцев; если второй заголовок
+// не удалось записать из-за конфликта версий, первый возвращается к прежнему состоянию.
+// Кошелек текущей сессии передается явно (own), остальные читаются из хранилища.
+// Перевод, не обработанный за transaction.lifetime.minutes, отменяется с возвратом суммы
+// (expireDue, вызывается TransferExpirySweeper); сроки ожидающих переводов - в TransferExpiryQueue.
+public class TransferEngine {
+    private static final Logger logger = LoggerFactory.getLogger(TransferEngine.class);
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+    private final ValidationService validationService;
+    private final StripedLocks walletLocks = StripedLocks.forWallets();
+    private final TransferSealer sealer;
+    private final TransferExpiryQueue expiryQueue = new TransferExpiryQueue();
+    private final Duration lifetime;
+    private final int maxBatchLines =
+            ApplicationConfig.getIntProperty("transaction.batch.max-lines", 1000);
+
+    public TransferEngine(UserRepository userRepository, WalletRepository walletRepository,
+                          TransactionRepository transactionRepository, ValidationService validationService) {
+        this(userRepository, walletRepository, transactionRepository, validationService,
+                Duration.ofMinutes(ApplicationConfig.getIntProperty("transaction.lifetime.minutes", 1440)));
+    }
+
+    // Нулевой срок - переводы не истекают
+    public TransferEngine(UserRepository userRepository, WalletRepository walletRepository,
+                          TransactionRepository transactionRepository, ValidationService validationService,
+                          Duration lifetime) {
+        this(userRepository, walletRepository, transactionRepository, validationService, lifetime,
+                TransferSealer.configured());
+    }
+
+    public TransferEngine(UserRepository userRepository, WalletRepository walletRepository,
+                          TransactionRepository transactionRepository, ValidationService validationService,
+                          Duration lifetime, TransferSealer sealer) {
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.validationService = validationService;
+        this.lifetime = lifetime;
+        this.sealer = sealer;
+    }
+
+    // Ключ идемпотентности (может быть null) однозначно задает id перевода: повтор запроса
+    // с тем же ключом возвращает уже созданный перевод и не списывает сумму второй раз
+    public Transaction create(UUID senderId, Wallet own, String receiverLogin, BigDecimal amount,
+                              String idempotencyKey) {
+        if (!validationService.validateAmount(amount)) {
+            throw new ValidationException("Некорректная сумма перевода");
+        }
+        User sender = userRepository.findById(senderId)
+                .orElseThrow(() -> new ValidationException("Отправитель не найден"));
+        User receiver = userRepository.findByLogin(receiverLogin)
+                .orElseThrow(() -> new ValidationException("Получатель не найден"));
+        if (receiver.getId().equals(senderId)) {
+            throw new ValidationException("Нельзя перевести средства самому себе");
+        }
+        UUID transferId = idempotencyKey == null ? UUID.randomUUID()
+                : UUID.nameUUIDFromBytes((senderId + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+
+        return walletLocks.withLock(senderId, () -> {
+            Wallet wallet = walletOf(senderId, own);
+            Optional<Transaction> existing = findActive(wallet, transferId);
+            if (existing.isEmpty() && idempotencyKey != null) {
+                existing = findProcessed(wallet, transferId);
+            }
+            if (existing.isPresent()) {
+                Transaction previous = existing.get();
+                if (previous.getAmount().compareTo(amount) != 0 || !receiver.getId().equals(previous.getReceiverId())) {
+                    logger.warn("Повтор запроса перевода {} с другим получателем или суммой", transferId);
+                    throw new ValidationException("Ключ запроса уже использован для другого перевода");
+                }
+                logger.info("Повтор запроса перевода {}: возвращен существующий", transferId);
+                return previous;
+            }
+            if (wallet.getBalance().compareTo(amount) < 0) {
+                throw new ValidationException("Недостаточно средств");
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            Transaction transfer = new Transaction(transferId, Transaction.TransactionType.TRANSFER, amount, null,
+                    now, Transaction.TransactionStatus.PENDING, "Перевод пользователю " + receiver.getLogin(),
+                    senderId, receiver.getId(), lifetime.isZero() ? null : now.plus(lifetime));
+            wallet.setBalance(wallet.getBalance().subtract(amount));
+            wallet.getActiveTransactions().add(transfer);
+            try {
+                walletRepository.saveHeader(wallet);
+            } catch (RuntimeException e) {
+                wallet.setBalance(wallet.getBalance().add(amount));
+                wallet.getActiveTransactions().remove(transfer);
+                throw e;
+            }
+            try {
+                transactionRepository.saveTransaction(transfer);
+                TransferFile file = sealer.seal(new TransferFile(transferId, now, sender.getLogin(),
+                        receiver.getLogin(), receiver.getId(), amount, null));
+                transactionRepository.saveTransferFile(file, receiver.getId(), true);
+                transactionRepository.saveTransferFile(file, senderId, false);
+            } catch (RuntimeException e) {
+                compensate(wallet, List.of(transfer), e);
+                throw e;
+            }
+            track(transfer);
+            logger.info("Создан перевод {}: {} -> {}, сумма {}", transferId, sender.getLogin(),
+                    receiver.getLogin(), amount);
+            return transfer;
+        });
+    }
+
+    // Массовый перевод (выплаты многим получателям): логины разрешаются одним запросом, строки
+    // с ошибками отклоняются по отдельности, сумма остальных проверяется и резервируется одной
+    // записью кошелька, переводы записываются одним шагом хранилища. Не хватает средств на все
+    // принятые строки - отклоняется вся заявка. Ключ идемпотентности задает id перевода каждой
+    // строки, поэтому повтор заявки возвращает уже созданные переводы без нового списания.
+    public TransferBatchReport createBatch(UUID senderId, Wallet own, List<TransferOrder> orders,
+                                           String idempotencyKey) {
+        long started = System.currentTimeMillis();
+        if (orders.isEmpty() || orders.size() > maxBatchLines) {
+            throw new ValidationException("В заявке должно быть от 1 до " + maxBatchLines + " строк");
+        }
+        User sender = userRepository.findById(senderId)
+                .orElseThrow(() -> new ValidationException("Отправитель не найден"));
+        Map<String, User> receivers = userRepository.findAllByLogin(orders.stream()
+                .map(TransferOrder::getLogin)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        TransferBatchReport report = new TransferBatchReport();
+        Map<TransferBatchReport.Line, UUID> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            TransferOrder order = orders.get(i);
+            TransferBatchReport.Line line = new TransferBatchReport.Line(i + 1, order.getLogin(), order.getAmount());
+            report.getLines().add(line);
+            User receiver = order.getLogin() != null ? receivers.get(order.getLogin()) : null;
+            if (!validationService.validateAmount(order.getAmount())) {
+                line.setError("Некорректная сумма перевода");
+            } else if (receiver == null) {
+                line.setError("Получатель не найден");
+            } else if (receiver.getId().equals(senderId)) {
+                line.setError("Нельзя перевести средства самому себе");
+            } else {
+                accepted.put(line, idempotencyKey == null ? UUID.randomUUID() : UUID.nameUUIDFromBytes(
+                        (senderId + ":" + idempotencyKey + ":" + line.getLine()).getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        walletLocks.withLock(senderId, () -> {
+            Wallet wallet = walletOf(senderId, own);
+            Map<UUID, Transaction> active = wallet.getActiveTransactions().stream()
+                    .collect(Collectors.toMap(Transaction::getId, t -> t, (first, second) -> first));
+            LocalDateTime now = LocalDateTime.now();
+            List<Transaction> transfers = new ArrayList<>();
+            List<TransferFile> files = new ArrayList<>();
+            BigDecimal total = BigDecimal.ZERO;
+            for (Map.Entry<TransferBatchReport.Line, UUID> entry : accepted.entrySet()) {
+                TransferBatchReport.Line line = entry.getKey();
+                UUID transferId = entry.getValue();
+                Optional<Transaction> existing = Optional.ofNullable(active.get(transferId));
+                if (existing.isEmpty() && idempotencyKey != null) {
+                    existing = findProcessed(wallet, transferId);
+                }
+                if (existing.isPresent()) {
+                    line.setTransfer(existing.get());
+                    continue;
+                }
+                User receiver = receivers.get(line.getLogin());
+                Transaction transfer = new Transaction(transferId, Transaction.TransactionType.TRANSFER,
+                        line.getAmount(), null, now, Transaction.TransactionStatus.PENDING,
+                        "Перевод пользователю " + receiver.getLogin(), senderId, receiver.getId(),
+                        lifetime.isZero() ? null : now.plus(lifetime));
+                line.setTransfer(transfer);
+                transfers.add(transfer);
+                files.add(sealer.seal(new TransferFile(transferId, now, sender.getLogin(), receiver.getLogin(),
+                        receiver.getId(), line.getAmount(), null)));
+                total = total.add(line.getAmount());
+            }
+            if (transfers.isEmpty()) {
+                return null;
+            }
+            if (wallet.getBalance().compareTo(total) < 0) {
+                throw new ValidationException("Недостаточно средств: требуется " + total + ", доступно "
+                        + wallet.getBalance());
+            }
+
+            wallet.setBalance(wallet.getBalance().subtract(total));
+            wallet.getActiveTransactions().addAll(transfers);
+            try {
+                walletRepository.saveHeader(wallet);
+            } catch (RuntimeException e) {
+                wallet.setBalance(wallet.getBalance().add(total));
+                wallet.getActiveTransactions().removeAll(transfers);
+                throw e;
+            }
+            try {
+                transactionRepository.saveTransfers(senderId, transfers, files);
+            } catch (RuntimeException e) {
+                compensate(wallet, transfers, e);
+                throw e;
+            }
+            transfers.forEach(this::track);
+            report.setDebited(total);
+            logger.info("Создан массовый перевод от {}: {} переводов на сумму {}", sender.getLogin(),
+                    transfers.size(), total);
+            return null;
+        });
+        report.setElapsedMs(System.currentTimeMillis() - started);
+        return report;
+    }
+
+    // Получатель принимает перевод: зачисление получателю и закрытие резерва отправителя
+    public Transaction approve(UUID receiverId, Wallet own, UUID transferId) {
+        TransferFile file = incoming(receiverId, transferId);
+        UUID senderId = senderOf(file);
+        return walletLocks.withLocks(senderId, receiverId, () -> {
+            Wallet senderWallet = walletOf(senderId, null);
+            Optional<Transaction> pending = findActive(senderWallet, transferId);
+            if (pending.isEmpty()) {
+                return alreadyProcessed(senderWallet, transferId, receiverId, Transaction.TransactionStatus.APPROVED);
+            }
+            Wallet receiverWallet = walletOf(receiverId, own);
+            Transaction approved = withStatus(pending.get(), Transaction.TransactionStatus.APPROVED);
+            BigDecimal amount = approved.getAmount();
+
+            senderWallet.getActiveTransactions().remove(pending.get());
+            senderWallet.getTransactionHistory().add(approved);
+            receiverWallet.setBalance(receiverWallet.getBalance().add(amount));
+            receiverWallet.getTransactionHistory().add(approved);
+            saveBoth(senderWallet, List.of(approved), receiverWallet, List.of(approved), () -> {
+                senderWallet.getActiveTransactions().add(pending.get());
+                senderWallet.getTransactionHistory().remove(approved);
+                receiverWallet.setBalance(receiverWallet.getBalance().subtract(amount));
+                receiverWallet.getTransactionHistory().remove(approved);
+            });
+            expiryQueue.untrack(transferId);
+            removeFiles(transferId, senderId, receiverId);
+            logger.info("Перевод {} принят получателем, сумма {}", transferId, amount);
+            return approved;
+        });
+    }
+
+    // Получатель отказывается от перевода: резерв возвращается отправителю
+    public Transaction reject(UUID receiverId, UUID transferId) {
+        TransferFile file = incoming(receiverId, transferId);
+        UUID senderId = senderOf(file);
+        return release(senderId, receiverId, transferId, Transaction.TransactionStatus.REJECTED, null);
+    }
+
+    // Отправитель отзывает перевод, пока получатель его не обработал
+    public Transaction cancel(UUID senderId, Wallet own, UUID transferId) {
+        Wallet wallet = walletOf(senderId, own);
+        UUID receiverId = findActive(wallet, transferId)
+                .map(Transaction::getReceiverId)
+                .orElseThrow(() -> new ValidationException("Активный перевод не найден"));
+        return release(senderId, receiverId, transferId, Transaction.TransactionStatus.CANCELLED, own);
+    }
+
+    // Входящие переводы, ожидающие решения получателя, в порядке поступления, с расшифрованными
+    // суммой и отправителем; поврежденные записи пропускаются
+    public List<TransferFile> incomingTransfers(UUID userId, int offset, int limit) {
+        List<TransferFile> opened = new ArrayList<>();
+        for (TransferFile file : transactionRepository.findIncomingTransfers(userId, offset, limit)) {
+            Optional<TransferFile> transfer = sealer.open(file);
+            if (transfer.isPresent()) {
+                opened.add(transfer.get());
+            } else {
+                logger.error("Запись перевода {} у получателя {} изменена вне приложения", file.getTransactionId(),
+                        userId);
+            }
+        }
+        return opened;
+    }
+
+    public int countIncomingTransfers(UUID userId) {
+        return transactionRepository.countIncomingTransfers(userId);
+    }
+
+    // Отмена истекших переводов пачкой: у каждого отправителя - одна запись заголовка на все его
+    // истекшие переводы. Переводы, обработанные раньше, пропускаются; при ошибке сроки
+    // возвращаются в очередь и обрабатываются на следующем проходе. Возвращает число отмененных.
+    public int expireDue(int batchSize) {
+        List<TransferExpiryQueue.Deadline> due = expiryQueue.pollDue(LocalDateTime.now(), batchSize);
+        Map<UUID, List<TransferExpiryQueue.Deadline>> bySender = due.stream()
+                .collect(Collectors.groupingBy(TransferExpiryQueue.Deadline::getSenderId));
+        int expired = 0;
+        for (Map.Entry<UUID, List<TransferExpiryQueue.Deadline>> entry : bySender.entrySet()) {
+            UUID senderId = entry.getKey();
+            Set<UUID> ids = entry.getValue().stream()
+                    .map(TransferExpiryQueue.Deadline::getTransferId)
+                    .collect(Collectors.toSet());
+            try {
+                expired += walletLocks.withLock(senderId, () -> walletRepository.findByUserId(senderId)
+                        .map(wallet -> releaseActive(wallet, ids, Transaction.TransactionStatus.CANCELLED).size())
+                        .orElseGet(() -> {
+                            // кошелька нет - возвращать сумму некуда, сроки больше не отслеживаются
+                            logger.warn("Кошелек отправителя {} не найден, истекшие переводы пропущены: {}",
+                                    senderId, ids.size());
+                            return 0;
+                        }));
+            } catch (RuntimeException e) {
+                logger.error("Не удалось отменить истекшие переводы отправителя {}", senderId, e);
+                entry.getValue().forEach(expiryQueue::track);
+            }
+        }
+        return expired;
+    }
+
+    // Сроки ожидающих переводов из хранилища (после перезапуска); переводы, созданные без срока,
+    // истекают через lifetime от создания
+    public int restorePending() {
+        if (lifetime.isZero()) {
+            return 0;
+        }
+        List<Transaction> pending = transactionRepository.findPendingTransfers();
+        pending.forEach(this::track);
+        logger.info("Восстановлены сроки ожидающих переводов: {}", pending.size());
+        return pending.size();
+    }
+
+    public int pendingExpirations() {
+        return expiryQueue.size();
+    }
+
+    private void track(Transaction transfer) {
+        if (lifetime.isZero()) {
+            return;
+        }
+        LocalDateTime expires = transfer.getExpires() != null ? transfer.getExpires()
+                : transfer.getCreated().plus(lifetime);
+        expiryQueue.track(new TransferExpiryQueue.Deadline(expires, transfer.getId(), transfer.getSenderId(),
+                transfer.getReceiverId()));
+    }
+
+    // Сбой записи переводов после списания: переводы отменяются, суммы возвращаются отправителю.
+    // Если не удалась и отмена, сроки переводов отслеживаются - суммы вернет проверка истекших переводов
+    private void compensate(Wallet wallet, List<Transaction> transfers, RuntimeException failure) {
+        Set<UUID> ids = transfers.stream().map(Transaction::getId).collect(Collectors.toSet());
+        try {
+            releaseActive(wallet, ids, Transaction.TransactionStatus.CANCELLED);
+            logger.warn("Переводы {} отменены после сбоя записи, сумма возвращена отправителю", ids);
+        } catch (RuntimeException compensation) {
+            failure.addSuppressed(compensation);
+            transfers.forEach(this::track);
+            logger.error("Не удалось отменить переводы {} после сбоя записи", ids, compensation);
+        }
+    }
+
+    private Transaction release(UUID senderId, UUID receiverId, UUID transferId,
+                                Transaction.TransactionStatus status, Wallet own) {
+        return walletLocks.withLock(senderId, () -> {
+            Wallet wallet = walletOf(senderId, own);
+            if (findActive(wallet, transferId).isEmpty()) {
+                return alreadyProcessed(wallet, transferId, receiverId, status);
+            }
+            return releaseActive(wallet, Set.of(transferId), status).get(0);
+        });
+    }
+
+    // Под блокировкой отправителя: закрытие его активных переводов с возвратом сумм одной записью
+    // заголовка; переводы не из числа активных пропускаются
+    private List<Transaction> releaseActive(Wallet wallet, Set<UUID> transferIds,
+                                            Transaction.TransactionStatus status) {
+        List<Transaction> pending = wallet.getActiveTransactions().stream()
+                .filter(t -> transferIds.contains(t.getId()))
+                .toList();
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<Transaction> released = pending.stream().map(t -> withStatus(t, status)).toList();
+        BigDecimal total = released.stream().map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<Transaction> history = wallet.getTransactionHistory();
+
+        wallet.getActiveTransactions().removeAll(pending);
+        wallet.setBalance(wallet.getBalance().add(total));
+        history.addAll(released);
+        try {
+            walletRepository.saveHeader(wallet, released);
+        } catch (RuntimeException e) {
+            wallet.getActiveTransactions().addAll(pending);
+            wallet.setBalance(wallet.getBalance().subtract(total));
+            history.subList(history.size() - released.size(), history.size()).clear();
+            throw e;
+        }
+        for (Transaction transfer : released) {
+            expiryQueue.untrack(transfer.getId());
+            removeFiles(transfer.getId(), wallet.getUserId(), transfer.getReceiverId());
+        }
+        logger.info("Переводы закрыты со статусом {}: {}, сумма {} возвращена отправителю", status,
+                released.size(), total);
+        return released;
+    }
+
+    // Запись двух заголовков (каждый со своими транзакциями) как одной операции: при конфликте
+    // на втором первый заголовок перезаписывается с отмененными изменениями; уже дописанная первому
+    // запись перевода перекрывается следующей записью с тем же id
+    private void saveBoth(Wallet first, List<Transaction> firstTransactions, Wallet second,
+                          List<Transaction> secondTransactions, Runnable undo) {
+        try {
+            walletRepository.saveHeader(first, firstTransactions);
+        } catch (RuntimeException e) {
+            undo.run();
+            throw e;
+        }
+        try {
+            walletRepository.saveHeader(second, secondTransactions);
+        } catch (RuntimeException e) {
+            undo.run();
+            try {
+                walletRepository.saveHeader(first);
+            } catch (RuntimeException compensation) {
+                logger.error("Не удалось отменить изменения кошелька {} после сбоя перевода",
+                        first.getUserId(), compensation);
+                e.addSuppressed(compensation);
+            }
+            throw e;
+        }
+    }
+
+    // Перевод уже не активен: повтор того же решения возвращает результат, другое решение - ошибка.
+    // Оставшиеся от прерванной обработки файлы перевода удаляются.
+    private Transaction alreadyProcessed(Wallet senderWallet, UUID transferId, UUID receiverId,
+                                         Transaction.TransactionStatus requested) {
+        Optional<Transaction> done = findProcessed(senderWallet, transferId);
+        removeFiles(transferId, senderWallet.getUserId(), receiverId);
+        if (done.isPresent() && done.get().getStatus() == requested) {
+            return done.get();
+        }
+        throw new ValidationException("Перевод уже обработан");
+    }
+
+    private Optional<Transaction> findActive(Wallet wallet, UUID transferId) {
+        return wallet.getActiveTransactions().stream()
+                .filter(t -> t.getId().equals(transferId))
+                .findFirst();
+    }
+
+    // В истории кошелька - итоги, записанные через этот экземпляр после чтения; поиск с конца - повторы
+    // обычно касаются недавних переводов. Итоги из других экземпляров могут быть еще отложены,
+    // поэтому перед чтением хранилища изменения кошелька сбрасываются
+    private Optional<Transaction> findProcessed(Wallet wallet, UUID transferId) {
+        List<Transaction> history = wallet.getTransactionHistory();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            if (history.get(i).getId().equals(transferId)) {
+                return Optional.of(history.get(i));
+            }
+        }
+        walletRepository.flush(wallet.getUserId());
+        return transactionRepository.findTransactionById(transferId);
+    }
+
+    // Отправитель определяется по записи перевода, поэтому он берется из запечатанного содержимого
+    private TransferFile incoming(UUID receiverId, UUID transferId) {
+        TransferFile file = transactionRepository.findIncomingTransfer(receiverId, transferId)
+                .orElseThrow(() -> new ValidationException("Входящий перевод не найден"));
+        return sealer.open(file).orElseThrow(() -> {
+            logger.error("Запись перевода {} у получателя {} изменена вне приложения", transferId, receiverId);
+            return new ValidationException("Запись перевода повреждена");
+        });
+    }
+
+    private UUID senderOf(TransferFile file) {
+        return userRepository.findByLogin(file.getSenderLogin())
+                .map(User::getId)
+                .orElseThrow(() -> new ValidationException("Отправитель перевода не найден"));
+    }
+
+    private Wallet walletOf(UUID userId, Wallet own) {
+        if (own != null && own.getUserId().equals(userId)) {
+            return own;
+        }
+        return walletRepository.findByUserId(userId)
+                .orElseThrow(() -> new ValidationException("Кошелек не найден"));
+    }
+
+    private void removeFiles(UUID transferId, UUID senderId, UUID receiverId) {
+        transactionRepository.deleteTransferFile(transferId, receiverId, true);
+        transactionRepository.deleteTransferFile(transferId, senderId, false);
+    }
+
+    private static Transaction withStatus(Transaction transfer, Transaction.TransactionStatus status) {
+        return new Transaction(transfer.getId(), transfer.getType(), transfer.getAmount(), transfer.getCategory(),
+                transfer.getCreated(), status, transfer.getDescription(), transfer.getSenderId(),
+                transfer.getReceiverId(), transfer.getExpires());
+    }
+}
@@ -0,0 +1,68 @@
+package dev.micartera.domain.service;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Сроки ожидающих переводов, упорядоченные по времени истечения (очередь с приоритетом на
+// списке с пропусками): ближайшие сроки снимаются с головы, обработанный досрочно перевод
+// удаляется по id за O(log n), без перебора очереди.
+public class TransferExpiryQueue {
+    private static final Comparator<Deadline> ORDER =
+            Comparator.comparing(Deadline::getExpires).thenComparing(Deadline::getTransferId);
+    private final ConcurrentSkipListSet<Deadline> deadlines = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<UUID, Deadline> byTransfer = new ConcurrentHashMap<>();
+
+    public void track(Deadline deadline) {
+        Deadline previous = byTransfer.put(deadline.getTransferId(), deadline);
+        if (previous != null) {
+            deadlines.remove(previous);
+        }
+        deadlines.add(deadline);
+    }
+
+    public void untrack(UUID transferId) {
+        Deadline deadline = byTransfer.remove(transferId);
+        if (deadline != null) {
+            deadlines.remove(deadline);
+        }
+    }
+
+    // Снимает с очереди до max переводов со сроком не позже now, от самых старых
+    public List<Deadline> pollDue(LocalDateTime now, int max) {
+        List<Deadline> due = new ArrayList<>();
+        while (due.size() < max) {
+            Deadline first = deadlines.pollFirst();
+            if (first == null) {
+                break;
+            }
+            if (first.getExpires().isAfter(now)) {
+                deadlines.add(first);
+                break;
+            }
+            if (byTransfer.remove(first.getTransferId(), first)) {
+                due.add(first);
+            }
+        }
+        return due;
+    }
+
+    public int size() {
+        return byTransfer.size();
+    }
+
+    @Data
+    public static class Deadline {
+        private final LocalDateTime expires;
+        private final UUID transferId;
+        private final UUID senderId;
+        private final UUID receiverId;
+    }
+}
@@ -0,0 +1,101 @@
+package dev.micartera.domain.service;
+
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Периодическая отмена истекших переводов. За проход обрабатывается до batchSize переводов;
+// если отменена полная пачка, следующий проход запускается сразу, не дожидаясь интервала.
+public class TransferExpirySweeper implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TransferExpirySweeper.class);
+    private final TransferEngine transferEngine;
+    private final long intervalSeconds;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong lastTickExpired = new AtomicLong();
+    private final AtomicLong totalExpired = new AtomicLong();
+
+    public TransferExpirySweeper(TransferEngine transferEngine) {
+        this(transferEngine,
+                ApplicationConfig.getIntProperty("transaction.expiry.interval-seconds", 30),
+                ApplicationConfig.getIntProperty("transaction.expiry.batch-size", 500));
+    }
+
+    public TransferExpirySweeper(TransferEngine transferEngine, long intervalSeconds, int batchSize) {
+        this.transferEngine = transferEngine;
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.batchSize = Math.max(1, batchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transfer-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Сроки восстанавливаются из хранилища до первого прохода
+    public void start() {
+        scheduler.execute(() -> {
+            try {
+                transferEngine.restorePending();
+            } catch (RuntimeException e) {
+                logger.error("Не удалось восстановить сроки ожидающих переводов", e);
+            }
+        });
+        scheduler.scheduleWithFixedDelay(this::drain, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    // Один проход: число отмененных переводов
+    public int tick() {
+        int expired = transferEngine.expireDue(batchSize);
+        ticks.incrementAndGet();
+        lastTickExpired.set(expired);
+        totalExpired.addAndGet(expired);
+        if (expired > 0) {
+            logger.info("Отменено истекших переводов: {}, в очереди сроков: {}", expired,
+                    transferEngine.pendingExpirations());
+        }
+        return expired;
+    }
+
+    public long getTicks() {
+        return ticks.get();
+    }
+
+    public long getLastTickExpired() {
+        return lastTickExpired.get();
+    }
+
+    public long getTotalExpired() {
+        return totalExpired.get();
+    }
+
+    // Идущий проход дорабатывается без прерывания: прерывание закрыло бы файлы хранилища
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Проход отмены истекших переводов не завершился вовремя");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (tick() == batchSize && !scheduler.isShutdown()) {
+                // полная пачка - возможно, истекло больше
+            }
+        } catch (RuntimeException e) {
+            logger.error("Ошибка при отмене истекших переводов", e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package dev.micartera.domain.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import dev.micartera.domain.model.ProvisioningReport;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.UserRegistration;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.security.PasswordHasher;
+import dev.micartera.infrastructure.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+// Массовая регистрация пользователей из выгрузки (CSV "login,password" или JSON - массив
+// либо поток объектов {"login", "password"}). Записи обрабатываются пачками: проверка
+// и отсев повторов за один проход, параллельное хеширование паролей в пуле PasswordHasher,
+// запись пользователей и их кошельков одной операцией хранилища на пачку.
+public class UserProvisioningService {
+    private static final Logger logger = LoggerFactory.getLogger(UserProvisioningService.class);
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final String CSV_HEADER = "login,password";
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final ValidationService validationService;
+    private final PasswordHasher passwordHasher;
+    private final int batchSize;
+
+    public UserProvisioningService(UserRepository userRepository, WalletRepository walletRepository,
+                                   ValidationService validationService) {
+        this(userRepository, walletRepository, validationService, PasswordHasher.configured(), DEFAULT_BATCH_SIZE);
+    }
+
+    public UserProvisioningService(UserRepository userRepository, WalletRepository walletRepository,
+                                   ValidationService validationService, PasswordHasher passwordHasher,
+                                   int batchSize) {
+        this.userRepository = userRepository;
+        this.walletRepository = walletRepository;
+        this.validationService = validationService;
+        this.passwordHasher = passwordHasher;
+        this.batchSize = batchSize;
+    }
+
+    public ProvisioningReport provisionCsv(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        int[] line = {0};
+        return provision(() -> {
+            String text;
+            do {
+                text = reader.readLine();
+                line[0]++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank() || text.startsWith("#")
+                    || (line[0] == 1 && text.trim().equalsIgnoreCase(CSV_HEADER)));
+            int comma = text.indexOf(',');
+            if (comma < 0) {
+                return Row.failed(line[0], text.trim(), "Ожидается строка вида login,password");
+            }
+            return new Row(line[0], text.substring(0, comma).trim(), text.substring(comma + 1), null);
+        });
+    }
+
+    public ProvisioningReport provisionJson(InputStream source) throws IOException {
+        int[] record = {0};
+        try (MappingIterator<UserRegistration> registrations = JsonUtils.readValues(source, UserRegistration.class)) {
+            return provision(() -> {
+                if (!registrations.hasNextValue()) {
+                    return null;
+                }
+                record[0]++;
+                UserRegistration registration = registrations.nextValue();
+                return new Row(record[0], registration.getLogin(), registration.getPassword(), null);
+            });
+        }
+    }
+
+    private ProvisioningReport provision(RowSource source) throws IOException {
+        ProvisioningReport report = new ProvisioningReport();
+        Set<String> seen = new HashSet<>();
+        long started = System.nanoTime();
+        List<Row> batch = new ArrayList<>(batchSize);
+        Row row;
+        while ((row = source.next()) != null) {
+            report.setProcessed(report.getProcessed() + 1);
+            String reason = row.error != null ? row.error : check(row, seen);
+            if (reason != null) {
+                report.getFailures().add(new ProvisioningReport.Failure(row.record, row.login, reason));
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                register(batch, report);
+                batch.clear();
+            }
+        }
+        register(batch, report);
+        report.setElapsedMs((System.nanoTime() - started) / 1_000_000);
+        logger.info("Bulk registration: processed={}, created={}, failed={}, {} users/s",
+                report.getProcessed(), report.getCreated(), report.getFailures().size(),
+                String.format("%.1f", report.getUsersPerSecond()));
+        return report;
+    }
+
+    // Повтор внутри выгрузки отсекается по множеству уже встреченных логинов, существующий - по индексу хранилища
+    private String check(Row row, Set<String> seen) {
+        if (!validationService.validateLogin(row.login)) {
+            return "Некорректный логин";
+        }
+        if (!validationService.validatePassword(row.password)) {
+            return "Некорректный пароль";
+        }
+        if (!seen.add(row.login)) {
+            return "Логин повторяется в выгрузке";
+        }
+        if (userRepository.existsByLogin(row.login)) {
+            return "Пользователь уже существует";
+        }
+        return null;
+    }
+
+    private void register(List<Row> batch, ProvisioningReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<CompletableFuture<String>> hashes = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            hashes.add(passwordHasher.hashAsync(row.password));
+        }
+        List<Row> accepted = new ArrayList<>(batch.size());
+        List<User> users = new ArrayList<>(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            Row row = batch.get(i);
+            try {
+                users.add(new User(UUID.randomUUID(), row.login, hashes.get(i).join(), now));
+                accepted.add(row);
+            } catch (RuntimeException e) {
+                logger.error("Error hashing password: {}", row.login, e);
+                report.getFailures().add(new ProvisioningReport.Failure(row.record, row.login,
+                        "Ошибка хеширования пароля"));
+            }
+        }
+        List<Wallet> wallets = users.stream().map(user -> new Wallet(user.getId())).toList();
+        try {
+            userRepository.saveAll(users);
+            walletRepository.saveAll(wallets);
+            report.setCreated(report.getCreated() + users.size());
+        } catch (RuntimeException e) {
+            logger.warn("Batch write failed, saving {} users one by one", users.size(), e);
+            saveEach(accepted, users, wallets, report);
+        }
+    }
+
+    // Запасной путь после сбоя пачки: ошибка записи привязывается к конкретной строке выгрузки
+    private void saveEach(List<Row> rows, List<User> users, List<Wallet> wallets, ProvisioningReport report) {
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                userRepository.save(users.get(i));
+                walletRepository.save(wallets.get(i));
+                report.setCreated(report.getCreated() + 1);
+            } catch (RuntimeException e) {
+                report.getFailures().add(new ProvisioningReport.Failure(rows.get(i).record, rows.get(i).login,
+                        "Ошибка записи: " + e.getMessage()));
+            }
+        }
+    }
+
+    private interface RowSource {
+        Row next() throws IOException;
+    }
+
+    private static class Row {
+        private final int record;
+        private final String login;
+        private final String password;
+        private final String error;
+
+        private Row(int record, String login, String password, String error) {
+            this.record = record;
+            this.login = login;
+            this.password = password;
+            this.error = error;
+        }
+
+        private static Row failed(int record, String text, String error) {
+            return new Row(record, text, null, error);
+        }
+    }
+}
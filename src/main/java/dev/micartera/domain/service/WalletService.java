@@ -1,11 +1,14 @@
 package dev.micartera.domain.service;
 
 import dev.micartera.domain.exception.ValidationException;
+import dev.micartera.domain.exception.WalletVersionConflictException;
 import dev.micartera.domain.model.Budget;
 import dev.micartera.domain.model.Category;
+import dev.micartera.domain.model.CategoryTotals;
 import dev.micartera.domain.model.Transaction;
 import dev.micartera.domain.model.Wallet;
 import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.util.StripedLocks;
 import dev.micartera.presentation.service.SessionState;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -13,10 +16,12 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.temporal.TemporalAdjusters;
+import java.time.YearMonth;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class WalletService {
@@ -25,6 +30,7 @@ public class WalletService {
     private final ValidationService validationService;
     private final NotificationService notificationService;
     private final SessionState sessionState;
+    private final StripedLocks walletLocks = StripedLocks.forWallets();
     private static final BigDecimal LOW_BALANCE_THRESHOLD = new BigDecimal("6350.00");
 
 
@@ -38,13 +44,14 @@ public class WalletService {
             throw new ValidationException("Некорректная сумма");
         }
 
-        Wallet wallet = sessionState.getCurrentWallet();
         Transaction transaction = createTransaction(amount, category, description, Transaction.TransactionType.INCOME);
-
-        wallet.setBalance(wallet.getBalance().add(amount));
-        wallet.getTransactionHistory().add(transaction);
+        mutate(wallet -> {
+            wallet.setBalance(wallet.getBalance().add(amount));
+            wallet.getTransactionHistory().add(transaction);
+            wallet.getCategoryTotals().add(transaction);
+            saveWithTransaction(wallet, transaction);
+        });
         notificationService.notifyTransaction(transaction);
-        walletRepository.save(wallet);
     }
 
     public void addExpense(BigDecimal amount, Category category, String description) {
@@ -52,31 +59,35 @@ public class WalletService {
             throw new ValidationException("Некорректная сумма расхода");
         }
 
-        Wallet wallet = sessionState.getCurrentWallet();
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new ValidationException("Недостаточно средств");
-        }
-
         Transaction transaction = createTransaction(amount, category, description, Transaction.TransactionType.EXPENSE);
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        wallet.getTransactionHistory().add(transaction);
+        Wallet saved = mutate(wallet -> {
+            // проверка и списание под одной блокировкой
+            if (wallet.getBalance().compareTo(amount) < 0) {
+                throw new ValidationException("Недостаточно средств");
+            }
+            wallet.setBalance(wallet.getBalance().subtract(amount));
+            wallet.getTransactionHistory().add(transaction);
+            wallet.getCategoryTotals().add(transaction);
+            updateBudget(wallet, category, amount);
+            saveWithTransaction(wallet, transaction);
+        });
+        // уведомления только о сохраненной операции
         notificationService.notifyTransaction(transaction);
-
-        updateBudget(wallet, category, amount);
-        checkLowBalance(wallet);
-        walletRepository.save(wallet);
+        checkBudget(saved, category);
+        checkLowBalance(saved);
     }
 
     public void addCategory(String name, Category.CategoryType type) {
-        Wallet wallet = sessionState.getCurrentWallet();
         Category category = Category.builder()
                 .id(UUID.randomUUID())
                 .name(name)
                 .type(type)
                 .build();
 
-        wallet.getCategories().add(category);
-        walletRepository.save(wallet);
+        mutate(wallet -> {
+            wallet.getCategories().add(category);
+            walletRepository.saveHeader(wallet);
+        });
     }
 
     public void setBudget(UUID categoryId, BigDecimal limit) {
@@ -84,7 +95,6 @@ public class WalletService {
             throw new ValidationException("Некорректный лимит бюджета");
         }
 
-        Wallet wallet = sessionState.getCurrentWallet();
         Budget budget = Budget.builder()
                 .categoryId(categoryId)
                 .limit(limit)
@@ -93,8 +103,10 @@ public class WalletService {
                 .setAtDate(LocalDateTime.now())
                 .build();
 
-        wallet.getBudgets().put(categoryId, budget);
-        walletRepository.save(wallet);
+        mutate(wallet -> {
+            wallet.getBudgets().put(categoryId, budget);
+            walletRepository.saveHeader(wallet);
+        });
     }
 
     private void updateBudget(Wallet wallet, Category category, BigDecimal amount) {
@@ -102,20 +114,25 @@ public class WalletService {
             Budget budget = wallet.getBudgets().get(category.getId());
             if (budget != null && budget.isEnabled()) {
                 budget.setSpent(budget.getSpent().add(amount));
+            }
+        }
+    }
 
-                // Проверяем превышение бюджета и отправляем уведомление
-                if (budget.getSpent().compareTo(budget.getLimit()) > 0) {
-                    notificationService.notifyBudgetExceeded(category, budget);
-                }
+    // Проверяем превышение бюджета и отправляем уведомление
+    private void checkBudget(Wallet wallet, Category category) {
+        if (category.getType() == Category.CategoryType.EXPENSE) {
+            Budget budget = wallet.getBudgets().get(category.getId());
+            if (budget != null && budget.isEnabled() && budget.getSpent().compareTo(budget.getLimit()) > 0) {
+                notificationService.notifyBudgetExceeded(category, budget);
             }
         }
-        walletRepository.save(wallet);
     }
 
     public void deleteBudget(UUID categoryId) {
-        Wallet wallet = sessionState.getCurrentWallet();
-        wallet.getBudgets().remove(categoryId);
-        walletRepository.save(wallet);
+        mutate(wallet -> {
+            wallet.getBudgets().remove(categoryId);
+            walletRepository.saveHeader(wallet);
+        });
     }
 
     // TODO: нужны еще методы для работы с бюджетом -
@@ -133,15 +150,21 @@ public class WalletService {
         return transaction;
     }
 
+    // Запись отложенных изменений, чтобы чтение из хранилища их видело
+    public void flushPendingChanges() {
+        walletRepository.flush();
+    }
+
     public Optional<Wallet> findWalletByUserId(UUID userId) {
         return walletRepository.findByUserId(userId);
     }
 
     public void deleteCategory(UUID categoryId) {
-        Wallet wallet = sessionState.getCurrentWallet();
-        wallet.getCategories().removeIf(c -> c.getId().equals(categoryId));
-        wallet.getBudgets().remove(categoryId);
-        walletRepository.save(wallet);
+        mutate(wallet -> {
+            wallet.getCategories().removeIf(c -> c.getId().equals(categoryId));
+            wallet.getBudgets().remove(categoryId);
+            walletRepository.saveHeader(wallet);
+        });
     }
 
     private void checkLowBalance(Wallet wallet) {
@@ -151,15 +174,51 @@ public class WalletService {
     }
 
     public BigDecimal getCategoryMonthTotal(Category category) {
-        LocalDateTime firstDayOfCurrentMonth = LocalDateTime.now()
-                .with(TemporalAdjusters.firstDayOfMonth())
-                .with(LocalTime.MIN);
+        return getCategoryMonthTotal(category, YearMonth.now());
+    }
+
+    // Готовая сумма из заголовка кошелька, без прохода по истории
+    public BigDecimal getCategoryMonthTotal(Category category, YearMonth month) {
         Wallet wallet = sessionState.getCurrentWallet();
-        return wallet.getTransactionHistory().stream()
-                .filter(t -> t.getCreated().isAfter(firstDayOfCurrentMonth))
-                .filter(t -> t.getCategory().equals(category))
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return wallet.getCategoryTotals().get(category.getId(), month);
+    }
+
+    // Пересчет сумм по категориям по всей истории кошелька
+    public void rebuildCategoryTotals() {
+        mutate(wallet -> {
+            try (Stream<Transaction> history = walletRepository.streamHistory(wallet.getUserId())) {
+                wallet.setCategoryTotals(CategoryTotals.fromHistory(history));
+            }
+            walletRepository.saveHeader(wallet);
+        });
+    }
+
+    // Заголовок и транзакция одной записью: версия проверяется в хранилище до записи, поэтому при
+    // конфликте ничего не записывается, а транзакция попадает в историю раньше заголовка
+    private void saveWithTransaction(Wallet wallet, Transaction transaction) {
+        walletRepository.saveHeader(wallet, List.of(transaction));
+    }
+
+    // Изменение кошелька сессии под блокировкой по userId: изменения одного кошелька идут по очереди.
+    // Операция выполняется над копией, которая переносится в кошелек сессии только после успешной
+    // записи: при любой ошибке кошелек сессии остается прежним. Если заголовок в хранилище уже изменен
+    // другой сессией или процессом, кошелек сессии перечитывается, а операция отклоняется -
+    // ее нужно повторить над актуальными данными.
+    private Wallet mutate(Consumer<Wallet> mutation) {
+        Wallet current = sessionState.getCurrentWallet();
+        UUID userId = current.getUserId();
+        return walletLocks.withLock(userId, () -> {
+            Wallet draft = current.copy();
+            try {
+                mutation.accept(draft);
+            } catch (WalletVersionConflictException e) {
+                logger.warn("Конфликт версий кошелька: {}", e.getMessage());
+                sessionState.setCurrentSession(userId);
+                throw new ValidationException("Кошелек изменен в другой сессии, данные обновлены. Повторите операцию");
+            }
+            current.updateFrom(draft);
+            return current;
+        });
     }
 
     public String getFormattedCategoryType(Category category) {
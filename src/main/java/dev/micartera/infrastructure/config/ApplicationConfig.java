@@ -58,4 +58,26 @@ public class ApplicationConfig {
     public static String getProperty(String key) {
         return properties.getProperty(key);
     }
+
+    public static String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
+    // Переопределение параметра в рамках процесса (бенчмарки, утилиты), без записи в файл
+    public static void setProperty(String key, String value) {
+        properties.setProperty(key, value);
+    }
+
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Некорректное значение параметра {}: {}", key, value);
+            return defaultValue;
+        }
+    }
 }
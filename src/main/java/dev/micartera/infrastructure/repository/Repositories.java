@@ -0,0 +1,76 @@
+package dev.micartera.infrastructure.repository;
+
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.spi.RepositoryDecorator;
+import dev.micartera.infrastructure.repository.spi.StorageProvider;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+
+// Репозитории приложения: хранилище (StorageProvider) по app.storage.backend, поверх него
+// декораторы (RepositoryDecorator) из app.storage.decorators в порядке перечисления - первый
+// оборачивает хранилище, последний виден сервисам. Реализации находятся через ServiceLoader.
+@Getter
+public class Repositories {
+    private static final Logger logger = LoggerFactory.getLogger(Repositories.class);
+    private static final String DEFAULT_BACKEND = "files";
+    private static final String DEFAULT_DECORATORS = "write-behind,cache";
+    private final StorageProvider provider;
+    private final UserRepository userRepository;
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+
+    private Repositories(StorageProvider provider, List<RepositoryDecorator> decorators) {
+        this.provider = provider;
+        UserRepository users = provider.createUserRepository();
+        WalletRepository wallets = provider.createWalletRepository();
+        TransactionRepository transactions = provider.createTransactionRepository();
+        for (RepositoryDecorator decorator : decorators) {
+            users = decorator.decorate(users);
+            wallets = decorator.decorate(wallets);
+            transactions = decorator.decorate(transactions);
+        }
+        this.userRepository = users;
+        this.walletRepository = wallets;
+        this.transactionRepository = transactions;
+    }
+
+    public static Repositories configured() {
+        String backend = ApplicationConfig.getProperty("app.storage.backend");
+        String decorators = ApplicationConfig.getProperty("app.storage.decorators");
+        return create(backend == null || backend.isBlank() ? DEFAULT_BACKEND : backend.trim(),
+                Arrays.stream((decorators == null ? DEFAULT_DECORATORS : decorators).split(","))
+                        .map(String::trim)
+                        .filter(name -> !name.isEmpty())
+                        .toList());
+    }
+
+    public static Repositories create(String backend, List<String> decorators) {
+        StorageProvider provider = ServiceLoader.load(StorageProvider.class).stream()
+                .map(ServiceLoader.Provider::get)
+                .filter(p -> p.getName().equalsIgnoreCase(backend))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown storage backend: " + backend));
+        List<RepositoryDecorator> available = ServiceLoader.load(RepositoryDecorator.class).stream()
+                .map(ServiceLoader.Provider::get)
+                .toList();
+        List<RepositoryDecorator> chain = decorators.stream()
+                .map(name -> available.stream()
+                        .filter(d -> d.getName().equalsIgnoreCase(name))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown repository decorator: " + name)))
+                .toList();
+        logger.info("Storage: {}, decorators: {}", provider.getName(), decorators);
+        return new Repositories(provider, chain);
+    }
+
+    // Сброс отложенных изменений и закрытие хранилища
+    public void close() {
+        walletRepository.close();
+        provider.close();
+    }
+}
@@ -1,5 +1,6 @@
 package dev.micartera.infrastructure.repository;
 
+import dev.micartera.domain.model.HistoryCursor;
 import dev.micartera.domain.model.Transaction;
 import dev.micartera.domain.model.TransferFile;
 
@@ -7,20 +8,49 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TransactionRepository {
     Transaction saveTransaction(Transaction transaction);
 
     TransferFile saveTransferFile(TransferFile transferFile, UUID userId, boolean isIncoming);
 
+    // Пачка новых переводов одного отправителя: транзакции и файлы переводов у отправителя
+    // и получателей; хранилища переопределяют его для записи одним шагом
+    default void saveTransfers(UUID senderId, List<Transaction> transfers, List<TransferFile> files) {
+        transfers.forEach(this::saveTransaction);
+        for (TransferFile file : files) {
+            saveTransferFile(file, file.getReceiverId(), true);
+            saveTransferFile(file, senderId, false);
+        }
+    }
+
     Optional<Transaction> findTransactionById(UUID id);
 
     List<Transaction> findActiveTransactionsByUserId(UUID userId);
 
+    // Ожидающие переводы всех пользователей (восстановление сроков после перезапуска)
+    List<Transaction> findPendingTransfers();
+
+    // Транзакции, созданные в [from, to], по возрастанию даты создания
     List<Transaction> findTransactionHistoryByUserId(UUID userId, LocalDateTime from, LocalDateTime to);
 
+    // Ленивое чтение истории за период по возрастанию даты; поток нужно закрыть
+    Stream<Transaction> streamTransactionHistoryByUserId(UUID userId, LocalDateTime from, LocalDateTime to);
+
+    // Страница истории за период от новых к старым, начиная после курсора (null - с начала)
+    List<Transaction> findTransactionHistoryPage(UUID userId, LocalDateTime from, LocalDateTime to,
+                                                 HistoryCursor after, int limit);
+
     List<TransferFile> findIncomingTransfers(UUID userId);
 
+    // Страница входящих переводов в порядке поступления
+    List<TransferFile> findIncomingTransfers(UUID userId, int offset, int limit);
+
+    Optional<TransferFile> findIncomingTransfer(UUID userId, UUID transactionId);
+
+    int countIncomingTransfers(UUID userId);
+
     List<TransferFile> findOutgoingTransfers(UUID userId);
 
     void deleteTransferFile(UUID transactionId, UUID userId, boolean isIncoming);
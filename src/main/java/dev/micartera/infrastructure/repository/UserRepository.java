@@ -3,13 +3,34 @@ package dev.micartera.infrastructure.repository;
 
 import dev.micartera.domain.model.User;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository {
     User save(User user);
+
+    // Сохранение пачки пользователей; хранилища переопределяют его для записи одним блоком
+    default List<User> saveAll(List<User> users) {
+        users.forEach(this::save);
+        return users;
+    }
+
     Optional<User> findById(UUID id);
     Optional<User> findByLogin(String login);
+
+    // Пользователи по набору логинов за один проход; ненайденных логинов в результате нет
+    default Map<String, User> findAllByLogin(Collection<String> logins) {
+        Map<String, User> users = new HashMap<>();
+        for (String login : logins) {
+            findByLogin(login).ifPresent(user -> users.put(login, user));
+        }
+        return users;
+    }
+
     boolean existsByLogin(String login);
     void delete(UUID id);
 }
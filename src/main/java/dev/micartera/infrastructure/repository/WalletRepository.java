@@ -1,16 +1,77 @@
 package dev.micartera.infrastructure.repository;
 
+import dev.micartera.domain.model.Transaction;
 import dev.micartera.domain.model.Wallet;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface WalletRepository {
+    // Запись заголовка без проверки версии - для новых и переносимых кошельков. История не
+    // записывается и не удаляется: транзакции пишутся appendTransactions или вместе с заголовком
     Wallet save(Wallet wallet);
 
+    // Сохранение пачки кошельков; хранилища переопределяют его для записи одним блоком
+    default List<Wallet> saveAll(List<Wallet> wallets) {
+        wallets.forEach(this::save);
+        return wallets;
+    }
+
+    // Сохранение только заголовка (баланс, категории, бюджеты) без истории с проверкой версии:
+    // в хранилище должна лежать версия, с которой кошелек был прочитан, иначе
+    // WalletVersionConflictException. При успехе версия кошелька увеличивается.
+    default Wallet saveHeader(Wallet wallet) {
+        return saveHeader(wallet, List.of());
+    }
+
+    // То же вместе с транзакциями операции: версия проверяется до записи, транзакции дописываются
+    // в историю раньше заголовка - баланс в хранилище не опережает историю
+    default Wallet saveHeader(Wallet wallet, List<Transaction> transactions) {
+        long expected = wallet.getVersion();
+        wallet.setVersion(expected + 1);
+        try {
+            return saveHeader(wallet, expected, transactions);
+        } catch (RuntimeException e) {
+            wallet.setVersion(expected);
+            throw e;
+        }
+    }
+
+    // Запись заголовка с версией wallet.getVersion(), если в хранилище сейчас версия expectedVersion
+    default Wallet saveHeader(Wallet wallet, long expectedVersion) {
+        return saveHeader(wallet, expectedVersion, List.of());
+    }
+
+    Wallet saveHeader(Wallet wallet, long expectedVersion, List<Transaction> transactions);
+
+    // Дописывание одной транзакции в историю кошелька
+    void appendTransaction(UUID userId, Transaction transaction);
+
+    // Дописывание пачки транзакций одной записью
+    void appendTransactions(UUID userId, List<Transaction> transactions);
+
+    // Кошелек читается без истории (transactionHistory пуст): историю читают потоком
+    // streamHistory или страницами TransactionRepository
     Optional<Wallet> findByUserId(UUID userId);
 
+    // Ленивое чтение всей истории кошелька по возрастанию даты; поток нужно закрыть
+    Stream<Transaction> streamHistory(UUID userId);
+
     void delete(UUID userId);
-}
 
+    // Гарантирует, что все отложенные изменения записаны в хранилище
+    default void flush() {
+    }
+
+    // То же для одного кошелька
+    default void flush(UUID userId) {
+        flush();
+    }
+
+    // Освобождение ресурсов при завершении приложения
+    default void close() {
+    }
+}
 
@@ -0,0 +1,56 @@
+package dev.micartera.infrastructure.repository.decorator;
+
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.repository.spi.RepositoryDecorator;
+import dev.micartera.infrastructure.util.JsonUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Кэш прочитанных пользователей и кошельков (см. CachingUserRepository, CachingWalletRepository);
+// емкость задается в килобайтах, вес записи - размер JSON пользователя или заголовка кошелька
+public class CacheDecorator implements RepositoryDecorator {
+    @Override
+    public String getName() {
+        return "cache";
+    }
+
+    @Override
+    public UserRepository decorate(UserRepository repository) {
+        return new CachingUserRepository(repository,
+                ApplicationConfig.getIntProperty("app.storage.cache.users.capacity-kb", 256) * 1024L);
+    }
+
+    @Override
+    public WalletRepository decorate(WalletRepository repository) {
+        return new CachingWalletRepository(repository,
+                ApplicationConfig.getIntProperty("app.storage.cache.wallets.capacity-kb", 16384) * 1024L);
+    }
+
+    // Вес записи - размер JSON; считается без буфера, байты сразу отбрасываются
+    static long serializedSize(Object value) {
+        CountingStream out = new CountingStream();
+        try {
+            JsonUtils.write(out, value);
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+        return out.count;
+    }
+
+    private static class CountingStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
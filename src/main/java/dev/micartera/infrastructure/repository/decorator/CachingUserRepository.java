@@ -0,0 +1,121 @@
+package dev.micartera.infrastructure.repository.decorator;
+
+import dev.micartera.domain.model.User;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.decorator.WeightedLruCache.CacheStats;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Кэш пользователей по id с индексом логинов закэшированных записей.
+// Сохранение кладет в кэш копию записанного объекта, удаление - вытесняет; чтение возвращает
+// свою копию, поэтому изменения вызывающего не попадают в кэш в обход сохранения.
+public class CachingUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final WeightedLruCache<UUID, User> cache;
+    private final Map<String, UUID> logins = new ConcurrentHashMap<>();
+
+    public CachingUserRepository(UserRepository delegate, long capacityBytes) {
+        this.delegate = delegate;
+        this.cache = new WeightedLruCache<>(capacityBytes, (id, user) -> logins.remove(user.getLogin(), id));
+    }
+
+    @Override
+    public User save(User user) {
+        cache.invalidate(user.getId());
+        User saved = delegate.save(user);
+        cache(saved, cache.generation());
+        return saved;
+    }
+
+    // Массовая запись не заполняет кэш, чтобы не вытеснять активных пользователей
+    @Override
+    public List<User> saveAll(List<User> users) {
+        users.forEach(user -> cache.invalidate(user.getId()));
+        return delegate.saveAll(users);
+    }
+
+    @Override
+    public Optional<User> findById(UUID id) {
+        User cached = cache.get(id);
+        if (cached != null) {
+            return Optional.of(cached.copy());
+        }
+        long generation = cache.generation();
+        Optional<User> user = delegate.findById(id);
+        user.ifPresent(u -> cache(u, generation));
+        return user;
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        UUID id = logins.get(login);
+        if (id != null) {
+            User cached = cache.get(id);
+            if (cached != null && cached.getLogin().equals(login)) {
+                return Optional.of(cached.copy());
+            }
+        }
+        long generation = cache.generation();
+        Optional<User> user = delegate.findByLogin(login);
+        user.ifPresent(u -> cache(u, generation));
+        return user;
+    }
+
+    // Из хранилища одним запросом читаются только логины, которых нет в кэше
+    @Override
+    public Map<String, User> findAllByLogin(Collection<String> requested) {
+        Map<String, User> users = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String login : requested) {
+            UUID id = logins.get(login);
+            User cached = id != null ? cache.get(id) : null;
+            if (cached != null && cached.getLogin().equals(login)) {
+                users.put(login, cached.copy());
+            } else {
+                missing.add(login);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation = cache.generation();
+            Map<String, User> loaded = delegate.findAllByLogin(missing);
+            loaded.values().forEach(user -> cache(user, generation));
+            users.putAll(loaded);
+        }
+        return users;
+    }
+
+    @Override
+    public boolean existsByLogin(String login) {
+        UUID id = logins.get(login);
+        if (id != null && cache.peek(id) != null) {
+            return true;
+        }
+        return delegate.existsByLogin(login);
+    }
+
+    @Override
+    public void delete(UUID id) {
+        cache.invalidate(id);
+        delegate.delete(id);
+    }
+
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    // Логин регистрируется только для попавшей в кэш записи, вытеснение убирает его обратно
+    private void cache(User user, long generation) {
+        User copy = user.copy();
+        if (cache.putIfUnchanged(copy.getId(), copy, CacheDecorator.serializedSize(copy), generation)) {
+            logins.put(copy.getLogin(), copy.getId());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dev.micartera.infrastructure.repository.decorator;
+
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.repository.decorator.WeightedLruCache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Кэш заголовков кошельков. Каждый вызывающий получает свою копию: изменения одной сессии (и их откат)
+// не видны другим до сохранения, а неудачное сохранение не трогает кэш. После успешной записи
+// в кэш кладется копия сохраненного заголовка; более новая версия не заменяется старой.
+public class CachingWalletRepository implements WalletRepository {
+    private static final Logger logger = LoggerFactory.getLogger(CachingWalletRepository.class);
+    private final WalletRepository delegate;
+    private final WeightedLruCache<UUID, Wallet> cache;
+
+    public CachingWalletRepository(WalletRepository delegate, long capacityBytes) {
+        this.delegate = delegate;
+        this.cache = new WeightedLruCache<>(capacityBytes, (id, wallet) -> { });
+    }
+
+    @Override
+    public Wallet save(Wallet wallet) {
+        cache.invalidate(wallet.getUserId());
+        long generation = cache.generation();
+        Wallet saved = delegate.save(wallet);
+        remember(saved, generation);
+        return saved;
+    }
+
+    // Массовая запись не заполняет кэш, чтобы не вытеснять кошельки активных пользователей
+    @Override
+    public List<Wallet> saveAll(List<Wallet> wallets) {
+        wallets.forEach(wallet -> cache.invalidate(wallet.getUserId()));
+        return delegate.saveAll(wallets);
+    }
+
+    @Override
+    public Wallet saveHeader(Wallet wallet, List<Transaction> transactions) {
+        long generation = cache.generation();
+        try {
+            delegate.saveHeader(wallet, transactions);
+        } catch (RuntimeException e) {
+            // хранилище изменено другим экземпляром или запись не удалась - кэшу нельзя верить
+            cache.invalidate(wallet.getUserId());
+            throw e;
+        }
+        remember(wallet, generation);
+        return wallet;
+    }
+
+    @Override
+    public Wallet saveHeader(Wallet wallet, long expectedVersion, List<Transaction> transactions) {
+        long generation = cache.generation();
+        try {
+            delegate.saveHeader(wallet, expectedVersion, transactions);
+        } catch (RuntimeException e) {
+            cache.invalidate(wallet.getUserId());
+            throw e;
+        }
+        remember(wallet, generation);
+        return wallet;
+    }
+
+    // История не кэшируется, дописывание транзакций заголовок не меняет
+    @Override
+    public void appendTransaction(UUID userId, Transaction transaction) {
+        delegate.appendTransaction(userId, transaction);
+    }
+
+    @Override
+    public void appendTransactions(UUID userId, List<Transaction> transactions) {
+        delegate.appendTransactions(userId, transactions);
+    }
+
+    @Override
+    public Optional<Wallet> findByUserId(UUID userId) {
+        Wallet cached = cache.get(userId);
+        if (cached != null) {
+            return Optional.of(cached.copy());
+        }
+        long generation = cache.generation();
+        Optional<Wallet> wallet = delegate.findByUserId(userId);
+        wallet.ifPresent(w -> remember(w, generation));
+        return wallet;
+    }
+
+    @Override
+    public Stream<Transaction> streamHistory(UUID userId) {
+        return delegate.streamHistory(userId);
+    }
+
+    @Override
+    public void delete(UUID userId) {
+        cache.invalidate(userId);
+        delegate.delete(userId);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public void flush(UUID userId) {
+        delegate.flush(userId);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+        CacheStats stats = getStats();
+        logger.info("Wallet cache: hits={}, misses={}, evictions={}, hit rate={}",
+                stats.getHits(), stats.getMisses(), stats.getEvictions(), String.format("%.2f", stats.getHitRate()));
+    }
+
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    // Копия заголовка в кэш, если с начала операции не было инвалидаций и в кэше нет более новой версии
+    private void remember(Wallet wallet, long generation) {
+        Wallet copy = wallet.copy();
+        cache.putIfUnchanged(copy.getUserId(), copy, CacheDecorator.serializedSize(copy), generation,
+                cached -> cached.getVersion() < copy.getVersion());
+    }
+}
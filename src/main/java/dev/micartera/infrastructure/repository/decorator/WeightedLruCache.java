@@ -0,0 +1,124 @@
+package dev.micartera.infrastructure.repository.decorator;
+
+import lombok.Data;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+// LRU-кэш, ограниченный суммарным весом записей (размер в байтах), а не их числом.
+// Запись тяжелее всей емкости не кэшируется. Поколение (generation) растет при каждой
+// инвалидации: значение, загруженное до нее, не попадает в кэш (см. putIfUnchanged).
+public class WeightedLruCache<K, V> {
+    private final long maxWeight;
+    private final BiConsumer<K, V> onRemoval;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public WeightedLruCache(long maxWeight, BiConsumer<K, V> onRemoval) {
+        this.maxWeight = maxWeight;
+        this.onRemoval = onRemoval;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    // Без учета в статистике и без изменения порядка LRU
+    public synchronized V peek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized boolean put(K key, V value, long valueWeight) {
+        remove(key);
+        if (valueWeight > maxWeight) {
+            return false;
+        }
+        entries.put(key, new Entry<>(value, valueWeight));
+        weight += valueWeight;
+        evict();
+        return true;
+    }
+
+    // Запись загруженного значения, если с начала загрузки не было инвалидаций
+    public synchronized boolean putIfUnchanged(K key, V value, long valueWeight, long loadedAt) {
+        return generation == loadedAt && put(key, value, valueWeight);
+    }
+
+    // То же, но имеющееся значение заменяется, только если replaces его принимает
+    public synchronized boolean putIfUnchanged(K key, V value, long valueWeight, long loadedAt,
+                                               Predicate<V> replaces) {
+        Entry<V> current = entries.get(key);
+        return (current == null || replaces.test(current.value)) && putIfUnchanged(key, value, valueWeight, loadedAt);
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        remove(key);
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, entries.size(), weight, maxWeight);
+    }
+
+    private void remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+            onRemoval.accept(key, entry.value);
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = eldest.next();
+            eldest.remove();
+            weight -= entry.getValue().weight;
+            evictions++;
+            onRemoval.accept(entry.getKey(), entry.getValue().value);
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long weight;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    @Data
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final long weight;
+        private final long maxWeight;
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
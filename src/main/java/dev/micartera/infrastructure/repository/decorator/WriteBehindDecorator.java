@@ -0,0 +1,17 @@
+package dev.micartera.infrastructure.repository.decorator;
+
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.repository.spi.RepositoryDecorator;
+
+// Отложенная запись кошельков (см. WriteBehindWalletRepository)
+public class WriteBehindDecorator implements RepositoryDecorator {
+    @Override
+    public String getName() {
+        return "write-behind";
+    }
+
+    @Override
+    public WalletRepository decorate(WalletRepository repository) {
+        return WriteBehindWalletRepository.create(repository);
+    }
+}
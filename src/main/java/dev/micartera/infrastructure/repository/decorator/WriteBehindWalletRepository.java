@@ -0,0 +1,228 @@
+package dev.micartera.infrastructure.repository.decorator;
+
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Отложенная запись истории кошельков: транзакции, дописываемые без записи заголовка, копятся
+// в памяти и сбрасываются фоновым потоком одной записью на серию операций. Заголовок пишется сразу
+// с проверкой версии в хранилище (конфликт с другим экземпляром или процессом получает вызывающий,
+// а не фоновый сброс) и одной операцией с отложенными транзакциями кошелька: они попадают в историю
+// раньше заголовка, поэтому записанный баланс не опережает историю даже после аварийного завершения.
+public class WriteBehindWalletRepository implements WalletRepository {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindWalletRepository.class);
+    private final WalletRepository delegate;
+    private final long flushIntervalMs;
+    private final long maxDirtyAgeMs;
+    private final Map<UUID, DirtyWallet> dirty = new ConcurrentHashMap<>();
+    private final Map<UUID, Object> flushLocks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong transactionMutations = new AtomicLong();
+    private final AtomicLong transactionWrites = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    public static WriteBehindWalletRepository create(WalletRepository delegate) {
+        return create(delegate,
+                ApplicationConfig.getIntProperty("app.storage.write-behind.flush-interval-ms", 2000),
+                ApplicationConfig.getIntProperty("app.storage.write-behind.max-dirty-age-ms", 10000));
+    }
+
+    // Фоновый сброс планируется после создания экземпляра
+    public static WriteBehindWalletRepository create(WalletRepository delegate, long flushIntervalMs,
+                                                     long maxDirtyAgeMs) {
+        WriteBehindWalletRepository repository =
+                new WriteBehindWalletRepository(delegate, flushIntervalMs, maxDirtyAgeMs);
+        long tick = Math.max(1, Math.min(flushIntervalMs, maxDirtyAgeMs) / 2);
+        repository.scheduler.scheduleWithFixedDelay(repository::flushExpired, tick, tick, TimeUnit.MILLISECONDS);
+        return repository;
+    }
+
+    private WriteBehindWalletRepository(WalletRepository delegate, long flushIntervalMs, long maxDirtyAgeMs) {
+        this.delegate = delegate;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxDirtyAgeMs = maxDirtyAgeMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "wallet-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Wallet save(Wallet wallet) {
+        flush(wallet.getUserId());
+        return delegate.save(wallet);
+    }
+
+    @Override
+    public List<Wallet> saveAll(List<Wallet> wallets) {
+        wallets.forEach(wallet -> flush(wallet.getUserId()));
+        return delegate.saveAll(wallets);
+    }
+
+    // Отложенные транзакции кошелька записываются вместе с заголовком; при ошибке возвращаются в очередь
+    @Override
+    public Wallet saveHeader(Wallet wallet, long expectedVersion, List<Transaction> transactions) {
+        UUID userId = wallet.getUserId();
+        synchronized (flushLock(userId)) {
+            DirtyWallet entry = dirty.remove(userId);
+            if (entry == null) {
+                return delegate.saveHeader(wallet, expectedVersion, transactions);
+            }
+            List<Transaction> combined = new ArrayList<>(entry.transactions);
+            combined.addAll(transactions);
+            try {
+                delegate.saveHeader(wallet, expectedVersion, combined);
+            } catch (RuntimeException e) {
+                requeue(userId, entry);
+                throw e;
+            }
+            transactionWrites.incrementAndGet();
+            flushes.incrementAndGet();
+            return wallet;
+        }
+    }
+
+    @Override
+    public void appendTransaction(UUID userId, Transaction transaction) {
+        appendTransactions(userId, List.of(transaction));
+    }
+
+    @Override
+    public void appendTransactions(UUID userId, List<Transaction> transactions) {
+        long now = System.currentTimeMillis();
+        dirty.compute(userId, (id, entry) -> {
+            DirtyWallet target = entry != null ? entry : new DirtyWallet(now);
+            target.transactions.addAll(transactions);
+            target.lastMutationAt = now;
+            return target;
+        });
+        transactionMutations.addAndGet(transactions.size());
+    }
+
+    @Override
+    public Optional<Wallet> findByUserId(UUID userId) {
+        return delegate.findByUserId(userId);
+    }
+
+    // Отложенные транзакции кошелька записываются до чтения
+    @Override
+    public Stream<Transaction> streamHistory(UUID userId) {
+        flush(userId);
+        return delegate.streamHistory(userId);
+    }
+
+    @Override
+    public void delete(UUID userId) {
+        synchronized (flushLock(userId)) {
+            dirty.remove(userId);
+            delegate.delete(userId);
+        }
+    }
+
+    // Синхронный сброс всех отложенных изменений
+    @Override
+    public void flush() {
+        for (UUID userId : List.copyOf(dirty.keySet())) {
+            flush(userId);
+        }
+    }
+
+    @Override
+    public void flush(UUID userId) {
+        synchronized (flushLock(userId)) {
+            DirtyWallet entry = dirty.remove(userId);
+            if (entry == null) {
+                return;
+            }
+            try {
+                delegate.appendTransactions(userId, entry.transactions);
+                transactionWrites.incrementAndGet();
+                flushes.incrementAndGet();
+            } catch (RuntimeException e) {
+                logger.error("Error flushing wallet: {}", userId, e);
+                requeue(userId, entry);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flush();
+        logger.info("Write-behind stopped: mutations={}, flushes={}, writes saved={}",
+                getMutationCount(), getFlushCount(), getCoalescedWriteCount());
+    }
+
+    public long getMutationCount() {
+        return transactionMutations.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    // Сколько записей на диск удалось избежать за счет объединения изменений
+    public long getCoalescedWriteCount() {
+        return transactionMutations.get() - transactionWrites.get() - pendingWrites();
+    }
+
+    private long pendingWrites() {
+        long pending = 0;
+        for (DirtyWallet entry : dirty.values()) {
+            pending += entry.transactions.size();
+        }
+        return pending;
+    }
+
+    private void flushExpired() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<UUID, DirtyWallet> entry : dirty.entrySet()) {
+            DirtyWallet wallet = entry.getValue();
+            if (now - wallet.lastMutationAt >= flushIntervalMs || now - wallet.firstDirtyAt >= maxDirtyAgeMs) {
+                try {
+                    flush(entry.getKey());
+                } catch (RuntimeException e) {
+                    // уже залогировано, повторим на следующем такте
+                }
+            }
+        }
+    }
+
+    // Неудачный сброс возвращается в очередь перед изменениями, пришедшими за это время
+    private void requeue(UUID userId, DirtyWallet failed) {
+        dirty.merge(userId, failed, (newer, old) -> {
+            old.transactions.addAll(newer.transactions);
+            old.lastMutationAt = newer.lastMutationAt;
+            return old;
+        });
+    }
+
+    private Object flushLock(UUID userId) {
+        return flushLocks.computeIfAbsent(userId, id -> new Object());
+    }
+
+    private static class DirtyWallet {
+        private final long firstDirtyAt;
+        private long lastMutationAt;
+        private final List<Transaction> transactions = new ArrayList<>();
+
+        private DirtyWallet(long firstDirtyAt) {
+            this.firstDirtyAt = firstDirtyAt;
+            this.lastMutationAt = firstDirtyAt;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package dev.micartera.infrastructure.repository.impl;
+
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.TransactionRepository;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.repository.spi.StorageProvider;
+import dev.micartera.infrastructure.storage.TransactionJournal;
+import dev.micartera.infrastructure.storage.TransferInbox;
+
+import java.nio.file.Path;
+
+// Файловое хранилище в каталоге app.storage.path
+public class FileStorageProvider implements StorageProvider {
+    private TransactionJournal journal;
+
+    @Override
+    public String getName() {
+        return "files";
+    }
+
+    @Override
+    public UserRepository createUserRepository() {
+        return new UserRepositoryImpl();
+    }
+
+    @Override
+    public WalletRepository createWalletRepository() {
+        WalletRepositoryImpl repository = new WalletRepositoryImpl(journal());
+        repository.migrateLegacyWallets();
+        return repository;
+    }
+
+    @Override
+    public TransactionRepository createTransactionRepository() {
+        return new TransactionRepositoryImpl(journal());
+    }
+
+    // Кошельки и переводы пишут в один журнал каталога users
+    private synchronized TransactionJournal journal() {
+        if (journal == null) {
+            journal = TransactionJournal.forDirectory(Path.of(ApplicationConfig.getProperty("app.storage.path"), "users"));
+        }
+        return journal;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        TransferInbox.closeDirectory(Path.of(ApplicationConfig.getProperty("app.storage.path"), "transfers"));
+    }
+}
@@ -1,121 +1,165 @@
 package dev.micartera.infrastructure.repository.impl;
 
+import dev.micartera.domain.model.HistoryCursor;
 import dev.micartera.domain.model.Transaction;
 import dev.micartera.domain.model.TransferFile;
 import dev.micartera.infrastructure.config.ApplicationConfig;
 import dev.micartera.infrastructure.repository.TransactionRepository;
-import dev.micartera.infrastructure.util.JsonUtils;
+import dev.micartera.infrastructure.storage.TransactionJournal;
+import dev.micartera.infrastructure.storage.TransferInbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TransactionRepositoryImpl implements TransactionRepository {
     private static final Logger logger = LoggerFactory.getLogger(TransactionRepositoryImpl.class);
-    private final String transfersPath;
-    private final String usersPath;
+    private final TransactionJournal journal;
+    private final TransferInbox inbox;
 
     public TransactionRepositoryImpl() {
+        this(TransactionJournal.forDirectory(Path.of(ApplicationConfig.getProperty("app.storage.path") + "/users/")));
+    }
+
+    public TransactionRepositoryImpl(TransactionJournal journal) {
         String storagePath = ApplicationConfig.getProperty("app.storage.path");
-        this.transfersPath = storagePath + "/transfers/";
-        this.usersPath = storagePath + "/users/";
-        new File(transfersPath).mkdirs();
+        new File(storagePath + "/users/").mkdirs();
+        new File(storagePath + "/transfers/").mkdirs();
+        this.journal = journal;
+        this.inbox = TransferInbox.forDirectory(Path.of(storagePath, "transfers"));
     }
 
     @Override
     public Transaction saveTransaction(Transaction transaction) {
         try {
-            String json = JsonUtils.toJson(transaction);
-            File file = new File(usersPath + transaction.getSenderId() + "_transactions.json");
-            List<Transaction> transactions = readTransactionList(file);
-            transactions.add(transaction);
-
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(JsonUtils.toJson(transactions));
-            }
+            journal.append(transaction.getSenderId(), transaction);
             return transaction;
-        } catch (IOException e) {
+        } catch (UncheckedIOException e) {
             logger.error("Error saving transaction: {}", transaction.getId(), e);
             throw new RuntimeException("Could not save transaction", e);
         }
     }
 
-    private List<Transaction> readTransactionList(File file) throws IOException {
-        if (!file.exists()) {
-            return new ArrayList<>();
-        }
-        String content = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-        return Arrays.asList(JsonUtils.fromJson(content, Transaction[].class));
-    }
-
     @Override
     public TransferFile saveTransferFile(TransferFile transferFile, UUID userId, boolean isIncoming) {
         try {
-            String directory = transfersPath + userId + "/" + (isIncoming ? "in" : "out") + "/";
-            new File(directory).mkdirs();
-
-            String json = JsonUtils.toJson(transferFile);
-            File file = new File(directory + transferFile.getTransactionId() + ".json");
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(json);
-            }
+            inbox.append(userId, isIncoming, transferFile);
             return transferFile;
-        } catch (IOException e) {
+        } catch (UncheckedIOException e) {
             logger.error("Error saving transfer file: {}", transferFile.getTransactionId(), e);
             throw new RuntimeException("Could not save transfer file", e);
         }
     }
 
+    // Журнал отправителя и его исходящая очередь дописываются одной записью каждая,
+    // входящие очереди получателей - параллельно, по записи на получателя
     @Override
-    public Optional<Transaction> findTransactionById(UUID id) {
-        File dir = new File(usersPath);
-        File[] files = dir.listFiles((d, name) -> name.endsWith("_transactions.json"));
-        if (files == null) return Optional.empty();
-
-        for (File file : files) {
-            try {
-                List<Transaction> transactions = readTransactionList(file);
-                Optional<Transaction> found = transactions.stream()
-                        .filter(t -> t.getId().equals(id))
-                        .findFirst();
-                if (found.isPresent()) {
-                    return found;
+    public void saveTransfers(UUID senderId, List<Transaction> transfers, List<TransferFile> files) {
+        try {
+            journal.appendAll(senderId, transfers);
+            inbox.appendAll(senderId, false, files);
+            Map<UUID, List<TransferFile>> byReceiver = files.stream()
+                    .collect(Collectors.groupingBy(TransferFile::getReceiverId, LinkedHashMap::new, Collectors.toList()));
+            try (ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> writes = new ArrayList<>();
+                byReceiver.forEach((receiverId, received) ->
+                        writes.add(fanOut.submit(() -> inbox.appendAll(receiverId, true, received))));
+                for (Future<?> write : writes) {
+                    write.get();
                 }
-            } catch (IOException e) {
-                logger.error("Error reading transactions file: {}", file.getName(), e);
             }
+        } catch (UncheckedIOException e) {
+            logger.error("Error saving transfers batch of {}: {}", transfers.size(), senderId, e);
+            throw new RuntimeException("Could not save transfers", e);
+        } catch (ExecutionException e) {
+            logger.error("Error saving transfers batch of {}: {}", transfers.size(), senderId, e.getCause());
+            throw new RuntimeException("Could not save transfers", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while saving transfers", e);
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findTransactionById(UUID id) {
+        try {
+            return journal.find(id);
+        } catch (UncheckedIOException e) {
+            logger.error("Error reading transaction: {}", id, e);
+            return Optional.empty();
         }
-        return Optional.empty();
     }
 
+    // Ожидающие переводы отправителя - это его исходящая очередь; журнал читается только по их id,
+    // а не целиком
     @Override
     public List<Transaction> findActiveTransactionsByUserId(UUID userId) {
-        File file = new File(usersPath + userId + "_transactions.json");
         try {
-            List<Transaction> transactions = readTransactionList(file);
-            return transactions.stream()
-                    .filter(t -> t.getStatus() == Transaction.TransactionStatus.PENDING)
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
+            return pending(userId);
+        } catch (UncheckedIOException e) {
             logger.error("Error reading transactions: {}", userId, e);
             return new ArrayList<>();
         }
     }
 
     @Override
-    public List<Transaction> findTransactionHistoryByUserId(UUID userId, LocalDateTime from, LocalDateTime to) {
-        File file = new File(usersPath + userId + "_transactions.json");
+    public List<Transaction> findPendingTransfers() {
         try {
-            List<Transaction> transactions = readTransactionList(file);
-            return transactions.stream()
-                    .filter(t -> !t.getCreated().isBefore(from) && !t.getCreated().isAfter(to))
+            List<Transaction> pending = new ArrayList<>();
+            for (UUID userId : inbox.owners()) {
+                pending.addAll(pending(userId));
+            }
+            return pending;
+        } catch (UncheckedIOException e) {
+            logger.error("Error reading pending transfers", e);
+            return new ArrayList<>();
+        }
+    }
+
+    private List<Transaction> pending(UUID userId) {
+        return inbox.all(userId, false).stream()
+                .map(transfer -> journal.find(userId, transfer.getTransactionId()))
+                .flatMap(Optional::stream)
+                .filter(t -> t.getStatus() == Transaction.TransactionStatus.PENDING)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Transaction> findTransactionHistoryByUserId(UUID userId, LocalDateTime from, LocalDateTime to) {
+        // читаются только месячные сегменты, попадающие в период; результат по возрастанию даты
+        try (Stream<Transaction> transactions = journal.streamRange(userId, from, to)) {
+            return transactions.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            logger.error("Error reading transaction history: {}", userId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public Stream<Transaction> streamTransactionHistoryByUserId(UUID userId, LocalDateTime from, LocalDateTime to) {
+        return journal.streamRange(userId, from, to);
+    }
+
+    @Override
+    public List<Transaction> findTransactionHistoryPage(UUID userId, LocalDateTime from, LocalDateTime to,
+                                                        HistoryCursor after, int limit) {
+        // Более поздние месяцы, чем у курсора, не читаются вовсе
+        LocalDateTime upper = after != null && after.getCreated().isBefore(to) ? after.getCreated() : to;
+        try (Stream<Transaction> transactions = journal.streamRange(userId, from, upper, true)) {
+            return transactions.filter(t -> after == null || after.isFollowedBy(t))
+                    .limit(limit)
                     .collect(Collectors.toList());
-        } catch (IOException e) {
+        } catch (UncheckedIOException e) {
             logger.error("Error reading transaction history: {}", userId, e);
             return new ArrayList<>();
         }
@@ -123,43 +167,50 @@ public class TransactionRepositoryImpl implements TransactionRepository {
 
     @Override
     public List<TransferFile> findIncomingTransfers(UUID userId) {
-        return findTransfers(userId, true);
+        return findTransfers(userId, true, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<TransferFile> findIncomingTransfers(UUID userId, int offset, int limit) {
+        return findTransfers(userId, true, offset, limit);
     }
 
     @Override
     public List<TransferFile> findOutgoingTransfers(UUID userId) {
-        return findTransfers(userId, false);
+        return findTransfers(userId, false, 0, Integer.MAX_VALUE);
     }
 
-    private List<TransferFile> findTransfers(UUID userId, boolean incoming) {
-        String directory = transfersPath + userId + "/" + (incoming ? "in" : "out") + "/";
-        File dir = new File(directory);
-        if (!dir.exists()) {
-            return new ArrayList<>();
+    @Override
+    public Optional<TransferFile> findIncomingTransfer(UUID userId, UUID transactionId) {
+        try {
+            return inbox.find(userId, true, transactionId);
+        } catch (UncheckedIOException e) {
+            logger.error("Error reading transfer file: {}", transactionId, e);
+            return Optional.empty();
         }
+    }
 
-        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
-        if (files == null) return new ArrayList<>();
+    @Override
+    public int countIncomingTransfers(UUID userId) {
+        return inbox.count(userId, true);
+    }
 
-        List<TransferFile> transfers = new ArrayList<>();
-        for (File file : files) {
-            try {
-                String content = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-                transfers.add(JsonUtils.fromJson(content, TransferFile.class));
-            } catch (IOException e) {
-                logger.error("Error reading transfer file: {}", file.getName(), e);
-            }
+    private List<TransferFile> findTransfers(UUID userId, boolean incoming, int offset, int limit) {
+        try {
+            return inbox.peek(userId, incoming, offset, limit);
+        } catch (UncheckedIOException e) {
+            logger.error("Error reading transfer files: {}", userId, e);
+            return new ArrayList<>();
         }
-        return transfers;
     }
 
     @Override
     public void deleteTransferFile(UUID transactionId, UUID userId, boolean isIncoming) {
-        String directory = transfersPath + userId + "/" + (isIncoming ? "in" : "out") + "/";
-        File file = new File(directory + transactionId + ".json");
-        if (!file.delete() && file.exists()) {
-            logger.error("Could not delete transfer file: {}", transactionId);
-            throw new RuntimeException("Could not delete transfer file");
+        try {
+            inbox.remove(userId, isIncoming, transactionId);
+        } catch (UncheckedIOException e) {
+            logger.error("Could not delete transfer file: {}", transactionId, e);
+            throw new RuntimeException("Could not delete transfer file", e);
         }
     }
-}
\ No newline at end of file
+}
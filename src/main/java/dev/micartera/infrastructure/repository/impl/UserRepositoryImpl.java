@@ -4,40 +4,74 @@ package dev.micartera.infrastructure.repository.impl;
 import dev.micartera.domain.model.User;
 import dev.micartera.infrastructure.config.ApplicationConfig;
 import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.storage.AtomicFileWriter;
+import dev.micartera.infrastructure.storage.LoginIndex;
 import dev.micartera.infrastructure.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public class UserRepositoryImpl implements UserRepository {
     private static final Logger logger = LoggerFactory.getLogger(UserRepositoryImpl.class);
     private final String usersPath;
+    private final LoginIndex loginIndex;
 
     public UserRepositoryImpl() {
         this.usersPath = ApplicationConfig.getProperty("app.storage.path") + "/users/";
         new File(usersPath).mkdirs();
+        this.loginIndex = LoginIndex.open(Path.of(usersPath));
     }
 
+    // Логин индексируется до записи файла: после сбоя между ними логин остается занятым,
+    // а устаревшую запись индекса снимает findByLogin. При ошибке записи индекс возвращается.
     @Override
     public User save(User user) {
+        Optional<String> previous = loginIndex.loginOf(user.getId());
+        loginIndex.put(user.getLogin(), user.getId());
         try {
-            String json = JsonUtils.toJson(user);
-            File file = new File(usersPath + user.getId() + ".json");
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(json);
-            }
+            AtomicFileWriter.writeJson(Path.of(usersPath + user.getId() + ".json"), user);
             return user;
         } catch (IOException e) {
             logger.error("Error saving user: {}", user.getId(), e);
+            restoreLogin(user, previous);
             throw new RuntimeException("Could not save user", e);
         }
     }
 
+    // Индекс логинов дописывается один раз на всю пачку, затем файлы пользователей пишутся по одному
+    @Override
+    public List<User> saveAll(List<User> users) {
+        Map<String, UUID> logins = new LinkedHashMap<>();
+        Map<UUID, Optional<String>> previous = new LinkedHashMap<>();
+        for (User user : users) {
+            logins.put(user.getLogin(), user.getId());
+            previous.put(user.getId(), loginIndex.loginOf(user.getId()));
+        }
+        loginIndex.putAll(logins);
+        int written = 0;
+        try {
+            for (User user : users) {
+                AtomicFileWriter.writeJson(Path.of(usersPath + user.getId() + ".json"), user);
+                written++;
+            }
+        } catch (IOException e) {
+            logger.error("Error saving users batch of {}", users.size(), e);
+            for (User user : users.subList(written, users.size())) {
+                restoreLogin(user, previous.get(user.getId()));
+            }
+            throw new RuntimeException("Could not save users", e);
+        }
+        return users;
+    }
+
     @Override
     public Optional<User> findById(UUID id) {
         File file = new File(usersPath + id + ".json");
@@ -46,8 +80,7 @@ public class UserRepositoryImpl implements UserRepository {
         }
 
         try {
-            String content = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-            return Optional.of(JsonUtils.fromJson(content, User.class));
+            return Optional.of(JsonUtils.read(file.toPath(), User.class));
         } catch (IOException e) {
             logger.error("Error reading user: {}", id, e);
             return Optional.empty();
@@ -56,35 +89,42 @@ public class UserRepositoryImpl implements UserRepository {
 
     @Override
     public Optional<User> findByLogin(String login) {
-        File dir = new File(usersPath);
-        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
-        if (files == null) return Optional.empty();
+        Optional<UUID> id = loginIndex.find(login);
+        if (id.isEmpty()) {
+            return Optional.empty();
+        }
 
-        for (File file : files) {
-            try {
-                String content = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-                User user = JsonUtils.fromJson(content, User.class);
-                if (user.getLogin().equals(login)) {
-                    return Optional.of(user);
-                }
-            } catch (IOException e) {
-                logger.error("Error reading user file: {}", file.getName(), e);
-            }
+        Optional<User> user = findById(id.get()).filter(u -> u.getLogin().equals(login));
+        if (user.isEmpty()) {
+            logger.warn("Stale login index entry: {} -> {}", login, id.get());
+            loginIndex.remove(login);
         }
-        return Optional.empty();
+        return user;
     }
 
+    // Отсутствие в индексе - окончательный ответ; найденная запись проверяется по файлу пользователя
     @Override
     public boolean existsByLogin(String login) {
-        return findByLogin(login).isPresent();
+        return loginIndex.contains(login) && findByLogin(login).isPresent();
     }
 
     @Override
     public void delete(UUID id) {
+        Optional<User> user = findById(id);
         File file = new File(usersPath + id + ".json");
         if (!file.delete() && file.exists()) {
             logger.error("Could not delete user file: {}", id);
             throw new RuntimeException("Could not delete user");
         }
+        user.ifPresent(u -> loginIndex.remove(u.getLogin()));
+    }
+
+    // Файл пользователя не записан - логин в индексе возвращается к прежнему
+    private void restoreLogin(User user, Optional<String> previous) {
+        if (previous.isEmpty()) {
+            loginIndex.remove(user.getLogin());
+        } else if (!previous.get().equals(user.getLogin())) {
+            loginIndex.put(previous.get(), user.getId());
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,64 +1,246 @@
 package dev.micartera.infrastructure.repository.impl;
 
+import dev.micartera.domain.exception.WalletVersionConflictException;
+import dev.micartera.domain.model.CategoryTotals;
+import dev.micartera.domain.model.Transaction;
 import dev.micartera.domain.model.Wallet;
 import dev.micartera.infrastructure.config.ApplicationConfig;
 import dev.micartera.infrastructure.repository.WalletRepository;
-import dev.micartera.infrastructure.util.JsonUtils;
+import dev.micartera.infrastructure.storage.AtomicFileWriter;
+import dev.micartera.infrastructure.storage.StorageCodec;
+import dev.micartera.infrastructure.storage.TransactionJournal;
+import dev.micartera.infrastructure.util.StripedLocks;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Кошелек хранится в двух частях: небольшой заголовок <userId>_wallet.json (.smile - см. app.storage.format)
+// (баланс, категории, бюджеты) и журнал транзакций пользователя (см. TransactionJournal)
 public class WalletRepositoryImpl implements WalletRepository {
     private static final Logger logger = LoggerFactory.getLogger(WalletRepositoryImpl.class);
+    private static final String MIGRATED_MARKER = ".migrated";
     private final String walletsPath;
+    private final StorageCodec codec;
+    private final TransactionJournal journal;
+    private final StripedLocks locks = new StripedLocks(64);
 
     public WalletRepositoryImpl() {
+        this(TransactionJournal.forDirectory(Path.of(ApplicationConfig.getProperty("app.storage.path") + "/users/")));
+    }
+
+    public WalletRepositoryImpl(TransactionJournal journal) {
         this.walletsPath = ApplicationConfig.getProperty("app.storage.path") + "/wallets/";
         new File(walletsPath).mkdirs();
+        this.codec = StorageCodec.configured();
+        this.journal = journal;
     }
 
+    // Только заголовок: журнал не затрагивается
     @Override
     public Wallet save(Wallet wallet) {
-        try {
-            String json = JsonUtils.toJson(wallet);
-            File file = new File(walletsPath + wallet.getUserId() + "_wallet.json");
-            try (FileWriter writer = new FileWriter(file)) {
-                writer.write(json);
+        locks.withLock(wallet.getUserId(), () -> writeHeader(wallet));
+        return wallet;
+    }
+
+    // Сравнение версии и запись под блокировкой потоков процесса и файловой блокировкой
+    // <userId>.lock, которую учитывают и другие процессы с тем же хранилищем
+    @Override
+    public Wallet saveHeader(Wallet wallet, long expectedVersion, List<Transaction> transactions) {
+        UUID userId = wallet.getUserId();
+        locks.withLock(userId, () -> {
+            try (FileChannel lockChannel = FileChannel.open(lockFile(userId),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    long stored = storedVersion(userId);
+                    if (stored != expectedVersion) {
+                        throw new WalletVersionConflictException(userId, expectedVersion, stored);
+                    }
+                    appendTransactions(userId, transactions);
+                    writeHeader(wallet);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                logger.error("Error locking wallet: {}", userId, e);
+                throw new RuntimeException("Could not save wallet", e);
             }
-            return wallet;
+        });
+        return wallet;
+    }
+
+    private void writeHeader(Wallet wallet) {
+        try {
+            AtomicFileWriter.writeValue(walletFile(wallet.getUserId()).toPath(), header(wallet), codec);
         } catch (IOException e) {
             logger.error("Error saving wallet: {}", wallet.getUserId(), e);
             throw new RuntimeException("Could not save wallet", e);
         }
     }
 
+    // Версия заголовка на диске; кошелек без файла еще не сохранялся
+    private long storedVersion(UUID userId) throws IOException {
+        File file = walletFile(userId);
+        if (!file.exists()) {
+            return 0;
+        }
+        return codec.read(file.toPath(), Wallet.class).getVersion();
+    }
+
+    @Override
+    public void appendTransaction(UUID userId, Transaction transaction) {
+        try {
+            journal.append(userId, transaction);
+        } catch (UncheckedIOException e) {
+            logger.error("Error saving wallet transaction: {}", transaction.getId(), e);
+            throw new RuntimeException("Could not save wallet transaction", e);
+        }
+    }
+
+    @Override
+    public void appendTransactions(UUID userId, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        try {
+            journal.appendAll(userId, transactions);
+        } catch (UncheckedIOException e) {
+            logger.error("Error saving wallet transactions: {}", userId, e);
+            throw new RuntimeException("Could not save wallet transactions", e);
+        }
+    }
+
     @Override
     public Optional<Wallet> findByUserId(UUID userId) {
-        File file = new File(walletsPath + userId + "_wallet.json");
+        File file = walletFile(userId);
         if (!file.exists()) {
             return Optional.empty();
         }
 
         try {
-            String content = new String(java.nio.file.Files.readAllBytes(file.toPath()));
-            return Optional.of(JsonUtils.fromJson(content, Wallet.class));
-        } catch (IOException e) {
+            Wallet wallet = codec.read(file.toPath(), Wallet.class);
+            List<Transaction> embedded = wallet.getTransactionHistory();
+            if (embedded != null && !embedded.isEmpty()) {
+                logger.warn("Wallet history is still inside the wallet file, run migrateLegacyWallets: {}", userId);
+            }
+            wallet.setTransactionHistory(new ArrayList<>());
+            if (wallet.getCategoryTotals() == null) {
+                // чтение ничего не записывает: суммы сохранятся со следующим заголовком
+                try (Stream<Transaction> history = streamHistory(userId)) {
+                    wallet.setCategoryTotals(CategoryTotals.fromHistory(history));
+                }
+            }
+            return Optional.of(wallet);
+        } catch (IOException | UncheckedIOException e) {
             logger.error("Error reading wallet: {}", userId, e);
             return Optional.empty();
         }
     }
 
+    @Override
+    public Stream<Transaction> streamHistory(UUID userId) {
+        return journal.streamRange(userId, LocalDateTime.MIN, LocalDateTime.MAX);
+    }
+
     @Override
     public void delete(UUID userId) {
-        File file = new File(walletsPath + userId + "_wallet.json");
+        File file = walletFile(userId);
         if (!file.delete() && file.exists()) {
             logger.error("Could not delete wallet file: {}", userId);
             throw new RuntimeException("Could not delete wallet");
         }
+        lockFile(userId).toFile().delete();
+    }
+
+    private Path lockFile(UUID userId) {
+        return Path.of(walletsPath + userId + ".lock");
+    }
+
+    private File walletFile(UUID userId) {
+        return new File(walletsPath + userId + "_wallet" + codec.getFormat().getExtension());
+    }
+
+    // Однократный перенос кошельков старого формата (история внутри файла кошелька, нет сумм по
+    // категориям): история переносится в журнал, суммы считаются по ней, заголовок перезаписывается
+    // с той же версией. Выполненный перенос отмечается файлом .migrated, чтение кошельков ничего не пишет.
+    public void migrateLegacyWallets() {
+        Path marker = Path.of(walletsPath, MIGRATED_MARKER);
+        if (Files.exists(marker)) {
+            return;
+        }
+        String suffix = "_wallet" + codec.getFormat().getExtension();
+        int migrated = 0;
+        try {
+            List<Path> files;
+            try (Stream<Path> list = Files.list(Path.of(walletsPath))) {
+                files = list.filter(f -> f.getFileName().toString().endsWith(suffix)).toList();
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                UUID userId = UUID.fromString(name.substring(0, name.length() - suffix.length()));
+                if (locks.withLock(userId, () -> migrateWallet(userId, file))) {
+                    migrated++;
+                }
+            }
+            AtomicFileWriter.write(marker, new byte[0]);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Error migrating wallets: {}", walletsPath, e);
+            throw new RuntimeException("Could not migrate wallets", e);
+        }
+        if (migrated > 0) {
+            logger.info("Wallets moved to the header and journal format: {}", migrated);
+        }
+    }
+
+    // В журнал дописываются только транзакции, которых в нем еще нет
+    private boolean migrateWallet(UUID userId, Path file) {
+        try {
+            Wallet wallet = codec.read(file, Wallet.class);
+            List<Transaction> embedded = wallet.getTransactionHistory();
+            boolean hasEmbedded = embedded != null && !embedded.isEmpty();
+            if (!hasEmbedded && wallet.getCategoryTotals() != null) {
+                return false;
+            }
+            if (hasEmbedded) {
+                Set<UUID> journaled;
+                try (Stream<Transaction> records = journal.stream(userId)) {
+                    journaled = records.map(Transaction::getId).collect(Collectors.toSet());
+                }
+                appendTransactions(userId, embedded.stream().filter(t -> !journaled.contains(t.getId())).toList());
+            }
+            if (wallet.getCategoryTotals() == null) {
+                try (Stream<Transaction> history = streamHistory(userId)) {
+                    wallet.setCategoryTotals(CategoryTotals.fromHistory(history));
+                }
+            }
+            writeHeader(wallet);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not migrate wallet: " + file, e);
+        }
+    }
+
+    // Копия кошелька без истории транзакций для записи заголовка
+    private static Wallet header(Wallet wallet) {
+        Wallet header = new Wallet(wallet.getUserId(), wallet.getBalance(), wallet.getCategories(),
+                wallet.getBudgets(), wallet.getActiveTransactions(), new ArrayList<>(), wallet.getCategoryTotals());
+        header.setVersion(wallet.getVersion());
+        return header;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package dev.micartera.infrastructure.repository.jdbc;
+
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Встроенная БД H2 в процессе приложения (без сервера): один пул соединений на URL,
+// схема db/schema.sql применяется при открытии
+public class Database {
+    private static final Logger logger = LoggerFactory.getLogger(Database.class);
+    private static final Map<String, Database> databases = new ConcurrentHashMap<>();
+    private final String url;
+    private final JdbcConnectionPool pool;
+
+    private Database(String url) {
+        this.url = url;
+        this.pool = JdbcConnectionPool.create(url, "sa", "");
+        pool.setMaxConnections(ApplicationConfig.getIntProperty("app.storage.jdbc.max-connections", 10));
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:db/schema.sql'");
+        } catch (SQLException e) {
+            pool.dispose();
+            throw new RuntimeException("Could not open database: " + url, e);
+        }
+        logger.info("Database opened: {}", url);
+    }
+
+    // app.storage.jdbc.url или файл БД внутри каталога хранилища
+    public static Database configured() {
+        String url = ApplicationConfig.getProperty("app.storage.jdbc.url");
+        if (url == null || url.isBlank()) {
+            Path file = Path.of(ApplicationConfig.getProperty("app.storage.path"), "db", "micartera");
+            url = "jdbc:h2:file:" + file.toAbsolutePath().normalize();
+        }
+        return forUrl(url);
+    }
+
+    public static Database forUrl(String url) {
+        return databases.computeIfAbsent(url, Database::new);
+    }
+
+    public Connection connection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    // Выполнение в одной транзакции БД: при ошибке изменения откатываются
+    public <T> T inTransaction(Work<T> work) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    public void close() {
+        databases.remove(url, this);
+        pool.dispose();
+        logger.info("Database closed: {}", url);
+    }
+
+    public interface Work<T> {
+        T run(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,46 @@
+package dev.micartera.infrastructure.repository.jdbc;
+
+import dev.micartera.infrastructure.repository.TransactionRepository;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.repository.spi.StorageProvider;
+
+// Встроенная БД H2 (см. Database)
+public class H2StorageProvider implements StorageProvider {
+    private Database database;
+
+    @Override
+    public String getName() {
+        return "h2";
+    }
+
+    @Override
+    public UserRepository createUserRepository() {
+        return new JdbcUserRepository(database());
+    }
+
+    @Override
+    public WalletRepository createWalletRepository() {
+        return new JdbcWalletRepository(database());
+    }
+
+    @Override
+    public TransactionRepository createTransactionRepository() {
+        return new JdbcTransactionRepository(database());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (database != null) {
+            database.close();
+            database = null;
+        }
+    }
+
+    private synchronized Database database() {
+        if (database == null) {
+            database = Database.configured();
+        }
+        return database;
+    }
+}
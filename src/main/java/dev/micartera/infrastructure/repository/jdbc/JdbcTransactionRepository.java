@@ -0,0 +1,354 @@
+package dev.micartera.infrastructure.repository.jdbc;
+
+import dev.micartera.domain.model.HistoryCursor;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.infrastructure.repository.TransactionRepository;
+import dev.micartera.infrastructure.security.TransferSealer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class JdbcTransactionRepository implements TransactionRepository {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcTransactionRepository.class);
+    private static final String SELECT = "SELECT " + TransactionRows.COLUMNS + " FROM transactions ";
+    private static final String TRANSFER_COLUMNS =
+            "transaction_id, created, sender_login, receiver_login, receiver_id, amount, encrypted_data";
+    private static final String MERGE_TRANSFER = "MERGE INTO transfers (user_id, incoming, " + TRANSFER_COLUMNS
+            + ") KEY (user_id, incoming, transaction_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SEAL_MIGRATION = "seal-transfers";
+    private final Database database;
+
+    public JdbcTransactionRepository() {
+        this(Database.configured());
+    }
+
+    public JdbcTransactionRepository(Database database) {
+        this.database = database;
+        sealLegacyTransfers();
+    }
+
+    @Override
+    public Transaction saveTransaction(Transaction transaction) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(TransactionRows.MERGE)) {
+            TransactionRows.bind(statement, transaction.getSenderId(), transaction);
+            statement.executeUpdate();
+            return transaction;
+        } catch (SQLException e) {
+            logger.error("Error saving transaction: {}", transaction.getId(), e);
+            throw new RuntimeException("Could not save transaction", e);
+        }
+    }
+
+    @Override
+    public TransferFile saveTransferFile(TransferFile transferFile, UUID userId, boolean isIncoming) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(MERGE_TRANSFER)) {
+            bindTransfer(statement, transferFile, userId, isIncoming);
+            statement.executeUpdate();
+            return transferFile;
+        } catch (SQLException e) {
+            logger.error("Error saving transfer file: {}", transferFile.getTransactionId(), e);
+            throw new RuntimeException("Could not save transfer file", e);
+        }
+    }
+
+    // Транзакции и обе стороны всех переводов - одной транзакцией БД
+    @Override
+    public void saveTransfers(UUID senderId, List<Transaction> transfers, List<TransferFile> files) {
+        try {
+            database.inTransaction(connection -> {
+                TransactionRows.merge(connection, senderId, transfers);
+                try (PreparedStatement statement = connection.prepareStatement(MERGE_TRANSFER)) {
+                    for (TransferFile file : files) {
+                        bindTransfer(statement, file, file.getReceiverId(), true);
+                        statement.addBatch();
+                        bindTransfer(statement, file, senderId, false);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            logger.error("Error saving transfers batch of {}: {}", transfers.size(), senderId, e);
+            throw new RuntimeException("Could not save transfers", e);
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findTransactionById(UUID id) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(SELECT + "WHERE id = ? LIMIT 1")) {
+            statement.setObject(1, id);
+            return TransactionRows.readAll(statement).stream().findFirst();
+        } catch (SQLException e) {
+            logger.error("Error reading transaction: {}", id, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<Transaction> findActiveTransactionsByUserId(UUID userId) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(
+                     SELECT + "WHERE owner_id = ? AND status = ? ORDER BY created, id")) {
+            statement.setObject(1, userId);
+            statement.setString(2, Transaction.TransactionStatus.PENDING.name());
+            return TransactionRows.readAll(statement);
+        } catch (SQLException e) {
+            logger.error("Error reading transactions: {}", userId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public List<Transaction> findPendingTransfers() {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(
+                     SELECT + "WHERE status = ? AND type = ? ORDER BY created, id")) {
+            statement.setString(1, Transaction.TransactionStatus.PENDING.name());
+            statement.setString(2, Transaction.TransactionType.TRANSFER.name());
+            return TransactionRows.readAll(statement);
+        } catch (SQLException e) {
+            logger.error("Error reading pending transfers", e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public List<Transaction> findTransactionHistoryByUserId(UUID userId, LocalDateTime from, LocalDateTime to) {
+        try (Stream<Transaction> transactions = streamTransactionHistoryByUserId(userId, from, to)) {
+            return transactions.collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            logger.error("Error reading transaction history: {}", userId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public Stream<Transaction> streamTransactionHistoryByUserId(UUID userId, LocalDateTime from, LocalDateTime to) {
+        Connection connection = null;
+        try {
+            connection = database.connection();
+            PreparedStatement statement = connection.prepareStatement(
+                    SELECT + "WHERE owner_id = ? AND created BETWEEN ? AND ? ORDER BY created, id");
+            statement.setObject(1, userId);
+            statement.setObject(2, from);
+            statement.setObject(3, to);
+            return TransactionRows.stream(connection, statement);
+        } catch (SQLException e) {
+            close(connection);
+            logger.error("Error reading transaction history: {}", userId, e);
+            throw new RuntimeException("Could not read transaction history", e);
+        }
+    }
+
+    @Override
+    public List<Transaction> findTransactionHistoryPage(UUID userId, LocalDateTime from, LocalDateTime to,
+                                                        HistoryCursor after, int limit) {
+        // Продолжение по ключу (created, id) без пропуска уже показанных строк; owner_id в ORDER BY
+        // позволяет H2 читать строки прямо в порядке индекса transactions_owner_created без сортировки
+        String keyset = after == null ? "" : "AND (created < ? OR (created = ? AND id < ?)) ";
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(SELECT
+                     + "WHERE owner_id = ? AND created BETWEEN ? AND ? " + keyset
+                     + "ORDER BY owner_id, created DESC, id DESC LIMIT ?")) {
+            int i = 1;
+            statement.setObject(i++, userId);
+            statement.setObject(i++, from);
+            statement.setObject(i++, to);
+            if (after != null) {
+                statement.setObject(i++, after.getCreated());
+                statement.setObject(i++, after.getCreated());
+                statement.setObject(i++, after.getId());
+            }
+            statement.setInt(i, limit);
+            return TransactionRows.readAll(statement);
+        } catch (SQLException e) {
+            logger.error("Error reading transaction history: {}", userId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public List<TransferFile> findIncomingTransfers(UUID userId) {
+        return findTransfers(userId, true, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<TransferFile> findIncomingTransfers(UUID userId, int offset, int limit) {
+        return findTransfers(userId, true, offset, limit);
+    }
+
+    @Override
+    public List<TransferFile> findOutgoingTransfers(UUID userId) {
+        return findTransfers(userId, false, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Optional<TransferFile> findIncomingTransfer(UUID userId, UUID transactionId) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement("SELECT " + TRANSFER_COLUMNS
+                     + " FROM transfers WHERE user_id = ? AND incoming = TRUE AND transaction_id = ?")) {
+            statement.setObject(1, userId);
+            statement.setObject(2, transactionId);
+            return readTransfers(statement).stream().findFirst();
+        } catch (SQLException e) {
+            logger.error("Error reading transfer file: {}", transactionId, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public int countIncomingTransfers(UUID userId) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM transfers WHERE user_id = ? AND incoming = TRUE")) {
+            statement.setObject(1, userId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            logger.error("Error counting transfer files: {}", userId, e);
+            return 0;
+        }
+    }
+
+    private List<TransferFile> findTransfers(UUID userId, boolean incoming, int offset, int limit) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement("SELECT " + TRANSFER_COLUMNS
+                     + " FROM transfers WHERE user_id = ? AND incoming = ? ORDER BY created, transaction_id"
+                     + " LIMIT ? OFFSET ?")) {
+            statement.setObject(1, userId);
+            statement.setBoolean(2, incoming);
+            statement.setInt(3, limit);
+            statement.setInt(4, offset);
+            return readTransfers(statement);
+        } catch (SQLException e) {
+            logger.error("Error reading transfer files: {}", userId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    // Переводы, сохраненные до запечатывания, запечатываются один раз; после отметки в migrations
+    // строки без encrypted_data не запечатываются, и проверка их отклоняет
+    private void sealLegacyTransfers() {
+        try {
+            int sealed = database.inTransaction(connection -> {
+                try (PreparedStatement applied = connection.prepareStatement(
+                        "SELECT COUNT(*) FROM migrations WHERE name = ?")) {
+                    applied.setString(1, SEAL_MIGRATION);
+                    try (ResultSet rs = applied.executeQuery()) {
+                        if (rs.next() && rs.getInt(1) > 0) {
+                            return 0;
+                        }
+                    }
+                }
+                int count = 0;
+                try (PreparedStatement select = connection.prepareStatement("SELECT user_id, incoming, "
+                        + TRANSFER_COLUMNS + " FROM transfers WHERE encrypted_data IS NULL");
+                     PreparedStatement update = connection.prepareStatement("UPDATE transfers SET encrypted_data = ?,"
+                             + " sender_login = NULL, receiver_login = NULL, amount = NULL"
+                             + " WHERE user_id = ? AND incoming = ? AND transaction_id = ?");
+                     ResultSet rs = select.executeQuery()) {
+                    TransferSealer sealer = null;
+                    while (rs.next()) {
+                        if (sealer == null) {
+                            sealer = TransferSealer.configured();
+                        }
+                        TransferFile transfer = readTransfer(rs);
+                        update.setBytes(1, sealer.seal(transfer).getEncryptedData());
+                        update.setObject(2, rs.getObject("user_id", UUID.class));
+                        update.setBoolean(3, rs.getBoolean("incoming"));
+                        update.setObject(4, transfer.getTransactionId());
+                        update.addBatch();
+                        count++;
+                    }
+                    update.executeBatch();
+                }
+                try (PreparedStatement mark = connection.prepareStatement(
+                        "INSERT INTO migrations (name, applied) VALUES (?, ?)")) {
+                    mark.setString(1, SEAL_MIGRATION);
+                    mark.setObject(2, LocalDateTime.now());
+                    mark.executeUpdate();
+                }
+                return count;
+            });
+            if (sealed > 0) {
+                logger.info("Transfers sealed: {}", sealed);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Could not seal stored transfers", e);
+        }
+    }
+
+    private static List<TransferFile> readTransfers(PreparedStatement statement) throws SQLException {
+        List<TransferFile> transfers = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                transfers.add(readTransfer(rs));
+            }
+        }
+        return transfers;
+    }
+
+    private static TransferFile readTransfer(ResultSet rs) throws SQLException {
+        return new TransferFile(
+                rs.getObject("transaction_id", UUID.class),
+                rs.getObject("created", LocalDateTime.class),
+                rs.getString("sender_login"),
+                rs.getString("receiver_login"),
+                rs.getObject("receiver_id", UUID.class),
+                rs.getBigDecimal("amount"),
+                rs.getBytes("encrypted_data"));
+    }
+
+    @Override
+    public void deleteTransferFile(UUID transactionId, UUID userId, boolean isIncoming) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM transfers WHERE user_id = ? AND incoming = ? AND transaction_id = ?")) {
+            statement.setObject(1, userId);
+            statement.setBoolean(2, isIncoming);
+            statement.setObject(3, transactionId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Could not delete transfer file: {}", transactionId, e);
+            throw new RuntimeException("Could not delete transfer file", e);
+        }
+    }
+
+    private static void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn("Could not release database connection", e);
+        }
+    }
+
+    private static void bindTransfer(PreparedStatement statement, TransferFile transferFile, UUID userId,
+                                     boolean isIncoming) throws SQLException {
+        statement.setObject(1, userId);
+        statement.setBoolean(2, isIncoming);
+        statement.setObject(3, transferFile.getTransactionId());
+        statement.setObject(4, transferFile.getCreated());
+        statement.setString(5, transferFile.getSenderLogin());
+        statement.setString(6, transferFile.getReceiverLogin());
+        statement.setObject(7, transferFile.getReceiverId());
+        statement.setBigDecimal(8, transferFile.getAmount());
+        statement.setBytes(9, transferFile.getEncryptedData());
+    }
+}
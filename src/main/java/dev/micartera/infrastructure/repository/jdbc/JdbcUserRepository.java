@@ -0,0 +1,165 @@
+package dev.micartera.infrastructure.repository.jdbc;
+
+import dev.micartera.domain.model.User;
+import dev.micartera.infrastructure.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public class JdbcUserRepository implements UserRepository {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcUserRepository.class);
+    private static final String COLUMNS = "id, login, password_hash, created";
+    private static final int IN_BATCH = 500;
+    private static final String MERGE = "MERGE INTO users (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?)";
+    private final Database database;
+
+    public JdbcUserRepository() {
+        this(Database.configured());
+    }
+
+    public JdbcUserRepository(Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public User save(User user) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(MERGE)) {
+            bind(statement, user);
+            statement.executeUpdate();
+            return user;
+        } catch (SQLException e) {
+            logger.error("Error saving user: {}", user.getId(), e);
+            throw new RuntimeException("Could not save user", e);
+        }
+    }
+
+    @Override
+    public List<User> saveAll(List<User> users) {
+        try {
+            database.inTransaction(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(MERGE)) {
+                    for (User user : users) {
+                        bind(statement, user);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                return null;
+            });
+            return users;
+        } catch (SQLException e) {
+            logger.error("Error saving users batch of {}", users.size(), e);
+            throw new RuntimeException("Could not save users", e);
+        }
+    }
+
+    @Override
+    public Optional<User> findById(UUID id) {
+        return findOne("SELECT " + COLUMNS + " FROM users WHERE id = ?", id);
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return findOne("SELECT " + COLUMNS + " FROM users WHERE login = ?", login);
+    }
+
+    // Логины запрашиваются пачками по IN_BATCH одним запросом на пачку
+    @Override
+    public Map<String, User> findAllByLogin(Collection<String> logins) {
+        Map<String, User> users = new HashMap<>();
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(logins));
+        try (Connection connection = database.connection()) {
+            for (int from = 0; from < distinct.size(); from += IN_BATCH) {
+                List<String> chunk = distinct.subList(from, Math.min(distinct.size(), from + IN_BATCH));
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT " + COLUMNS + " FROM users WHERE login IN (" + placeholders + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            User user = read(rs);
+                            users.put(user.getLogin(), user);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading users batch of {}", distinct.size(), e);
+            throw new RuntimeException("Could not read users", e);
+        }
+        return users;
+    }
+
+    @Override
+    public boolean existsByLogin(String login) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM users WHERE login = ?")) {
+            statement.setString(1, login);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading user: {}", login, e);
+            throw new RuntimeException("Could not read user", e);
+        }
+    }
+
+    @Override
+    public void delete(UUID id) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM users WHERE id = ?")) {
+            statement.setObject(1, id);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Could not delete user: {}", id, e);
+            throw new RuntimeException("Could not delete user", e);
+        }
+    }
+
+    private Optional<User> findOne(String sql, Object key) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setObject(1, key);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(read(rs));
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading user: {}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    private static User read(ResultSet rs) throws SQLException {
+        return new User(
+                rs.getObject("id", UUID.class),
+                rs.getString("login"),
+                rs.getString("password_hash"),
+                rs.getObject("created", LocalDateTime.class));
+    }
+
+    private static void bind(PreparedStatement statement, User user) throws SQLException {
+        statement.setObject(1, user.getId());
+        statement.setString(2, user.getLogin());
+        statement.setString(3, user.getPasswordHash());
+        statement.setObject(4, user.getCreated());
+    }
+}
@@ -0,0 +1,219 @@
+package dev.micartera.infrastructure.repository.jdbc;
+
+import dev.micartera.domain.exception.WalletVersionConflictException;
+import dev.micartera.domain.model.CategoryTotals;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Заголовок кошелька - строка таблицы wallets (документ JSON без истории),
+// история - строки таблицы transactions того же владельца
+public class JdbcWalletRepository implements WalletRepository {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcWalletRepository.class);
+    private final Database database;
+
+    public JdbcWalletRepository() {
+        this(Database.configured());
+    }
+
+    public JdbcWalletRepository(Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public Wallet save(Wallet wallet) {
+        try {
+            String header = headerJson(wallet);
+            database.inTransaction(connection -> {
+                writeHeader(connection, wallet, header);
+                return null;
+            });
+            return wallet;
+        } catch (SQLException | IOException e) {
+            logger.error("Error saving wallet: {}", wallet.getUserId(), e);
+            throw new RuntimeException("Could not save wallet", e);
+        }
+    }
+
+    // Вся пачка одной транзакцией БД
+    @Override
+    public List<Wallet> saveAll(List<Wallet> wallets) {
+        try {
+            List<String> headers = new ArrayList<>(wallets.size());
+            for (Wallet wallet : wallets) {
+                headers.add(headerJson(wallet));
+            }
+            database.inTransaction(connection -> {
+                for (int i = 0; i < wallets.size(); i++) {
+                    writeHeader(connection, wallets.get(i), headers.get(i));
+                }
+                return null;
+            });
+            return wallets;
+        } catch (SQLException | IOException e) {
+            logger.error("Error saving wallets batch of {}", wallets.size(), e);
+            throw new RuntimeException("Could not save wallets", e);
+        }
+    }
+
+    // Условный UPDATE по версии; строки еще нет - вставка, если ожидалась версия 0
+    @Override
+    public Wallet saveHeader(Wallet wallet, long expectedVersion, List<Transaction> transactions) {
+        long actual;
+        try {
+            String header = headerJson(wallet);
+            // заголовок и транзакции операции - одной транзакцией БД
+            actual = database.inTransaction(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "UPDATE wallets SET balance = ?, header = ?, version = ? WHERE user_id = ? AND version = ?")) {
+                    statement.setBigDecimal(1, wallet.getBalance());
+                    statement.setString(2, header);
+                    statement.setLong(3, wallet.getVersion());
+                    statement.setObject(4, wallet.getUserId());
+                    statement.setLong(5, expectedVersion);
+                    if (statement.executeUpdate() == 1) {
+                        TransactionRows.merge(connection, wallet.getUserId(), transactions);
+                        return expectedVersion;
+                    }
+                }
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT version FROM wallets WHERE user_id = ?")) {
+                    statement.setObject(1, wallet.getUserId());
+                    try (ResultSet rs = statement.executeQuery()) {
+                        if (rs.next()) {
+                            return rs.getLong("version");
+                        }
+                    }
+                }
+                if (expectedVersion == 0) {
+                    writeHeader(connection, wallet, header);
+                    TransactionRows.merge(connection, wallet.getUserId(), transactions);
+                }
+                return 0L;
+            });
+        } catch (SQLException | IOException e) {
+            logger.error("Error saving wallet: {}", wallet.getUserId(), e);
+            throw new RuntimeException("Could not save wallet", e);
+        }
+        if (actual != expectedVersion) {
+            throw new WalletVersionConflictException(wallet.getUserId(), expectedVersion, actual);
+        }
+        return wallet;
+    }
+
+    @Override
+    public void appendTransaction(UUID userId, Transaction transaction) {
+        appendTransactions(userId, List.of(transaction));
+    }
+
+    @Override
+    public void appendTransactions(UUID userId, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        try {
+            database.inTransaction(connection -> {
+                TransactionRows.merge(connection, userId, transactions);
+                return null;
+            });
+        } catch (SQLException e) {
+            logger.error("Error saving wallet transactions: {}", userId, e);
+            throw new RuntimeException("Could not save wallet transactions", e);
+        }
+    }
+
+    @Override
+    public Optional<Wallet> findByUserId(UUID userId) {
+        Wallet wallet;
+        try (Connection connection = database.connection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT header, version FROM wallets WHERE user_id = ?")) {
+                statement.setObject(1, userId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        return Optional.empty();
+                    }
+                    wallet = JsonUtils.fromJson(rs.getString("header"), Wallet.class);
+                    wallet.setVersion(rs.getLong("version"));
+                    wallet.setTransactionHistory(new ArrayList<>());
+                }
+            }
+        } catch (SQLException | IOException e) {
+            logger.error("Error reading wallet: {}", userId, e);
+            return Optional.empty();
+        }
+        if (wallet.getCategoryTotals() == null) {
+            // чтение ничего не записывает: суммы сохранятся со следующим заголовком
+            try (Stream<Transaction> history = streamHistory(userId)) {
+                wallet.setCategoryTotals(CategoryTotals.fromHistory(history));
+            }
+        }
+        return Optional.of(wallet);
+    }
+
+    @Override
+    public Stream<Transaction> streamHistory(UUID userId) {
+        Connection connection = null;
+        try {
+            connection = database.connection();
+            PreparedStatement statement = connection.prepareStatement("SELECT " + TransactionRows.COLUMNS
+                    + " FROM transactions WHERE owner_id = ? ORDER BY created, id");
+            statement.setObject(1, userId);
+            return TransactionRows.stream(connection, statement);
+        } catch (SQLException e) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            logger.error("Error reading wallet history: {}", userId, e);
+            throw new RuntimeException("Could not read wallet history", e);
+        }
+    }
+
+    @Override
+    public void delete(UUID userId) {
+        try (Connection connection = database.connection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM wallets WHERE user_id = ?")) {
+            statement.setObject(1, userId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            logger.error("Could not delete wallet: {}", userId, e);
+            throw new RuntimeException("Could not delete wallet", e);
+        }
+    }
+
+    private static String headerJson(Wallet wallet) throws IOException {
+        Wallet header = new Wallet(wallet.getUserId(), wallet.getBalance(), wallet.getCategories(),
+                wallet.getBudgets(), wallet.getActiveTransactions(), new ArrayList<>(), wallet.getCategoryTotals());
+        header.setVersion(wallet.getVersion());
+        return JsonUtils.toJson(header);
+    }
+
+    private static void writeHeader(Connection connection, Wallet wallet, String header) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "MERGE INTO wallets (user_id, balance, header, version) KEY (user_id) VALUES (?, ?, ?, ?)")) {
+            statement.setObject(1, wallet.getUserId());
+            statement.setBigDecimal(2, wallet.getBalance());
+            statement.setString(3, header);
+            statement.setLong(4, wallet.getVersion());
+            statement.executeUpdate();
+        }
+    }
+}
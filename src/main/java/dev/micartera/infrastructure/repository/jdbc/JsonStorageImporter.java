@@ -0,0 +1,164 @@
+package dev.micartera.infrastructure.repository.jdbc;
+
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.storage.StorageCodec;
+import dev.micartera.infrastructure.storage.StorageFormat;
+import dev.micartera.infrastructure.storage.TransactionJournal;
+import dev.micartera.infrastructure.storage.TransferInbox;
+import dev.micartera.infrastructure.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Однократный перенос файлового хранилища (app.storage.path) во встроенную БД:
+//   java -cp miCartera.jar dev.micartera.infrastructure.repository.jdbc.JsonStorageImporter
+// Повторный запуск безопасен - строки с теми же ключами перезаписываются. Исходное хранилище
+// только читается: файлы старых форматов не переносятся и не запечатываются на месте.
+// После переноса приложение переключается параметром app.storage.backend=h2.
+public class JsonStorageImporter {
+    private static final Logger logger = LoggerFactory.getLogger(JsonStorageImporter.class);
+    private static final Pattern USER_FILE = Pattern.compile("[0-9a-fA-F-]{36}\\.json");
+    private static final int CHUNK_SIZE = 1000;
+    private final Path storage;
+    private final StorageFormat format = StorageFormat.configured();
+    private final JdbcUserRepository users;
+    private final JdbcWalletRepository wallets;
+    private final JdbcTransactionRepository transactions;
+    private int transactionCount;
+
+    public JsonStorageImporter(Path storage, Database database) {
+        this.storage = storage;
+        this.users = new JdbcUserRepository(database);
+        this.wallets = new JdbcWalletRepository(database);
+        this.transactions = new JdbcTransactionRepository(database);
+    }
+
+    public static void main(String[] args) throws IOException {
+        ApplicationConfig.initialize();
+        Path storage = Path.of(ApplicationConfig.getProperty("app.storage.path"));
+        Database database = Database.configured();
+        try {
+            Map<String, Integer> imported = new JsonStorageImporter(storage, database).importAll();
+            System.out.println("Imported: " + imported);
+        } finally {
+            database.close();
+        }
+    }
+
+    public Map<String, Integer> importAll() throws IOException {
+        Map<String, Integer> imported = new LinkedHashMap<>();
+        imported.put("users", importUsers());
+        Set<UUID> owners = new HashSet<>();
+        transactionCount = 0;
+        imported.put("wallets", importWallets(owners));
+        importJournals(owners);
+        imported.put("transactions", transactionCount);
+        imported.put("transfers", importTransfers());
+        logger.info("File storage imported into database: {}", imported);
+        return imported;
+    }
+
+    private int importUsers() throws IOException {
+        int count = 0;
+        for (Path file : list(storage.resolve("users"), USER_FILE)) {
+            users.save(JsonUtils.read(file, User.class));
+            count++;
+        }
+        return count;
+    }
+
+    // Кошелек переносится вместе с историей (заголовок, затем журнал частями); владельцы запоминаются,
+    // чтобы не читать их журналы повторно. История, еще хранящаяся в файле кошелька, идет перед журналом.
+    private int importWallets(Set<UUID> owners) throws IOException {
+        StorageCodec codec = StorageCodec.forFormat(format);
+        Pattern walletFile = Pattern.compile("([0-9a-fA-F-]{36})_wallet" + Pattern.quote(format.getExtension()));
+        Path journals = storage.resolve("users");
+        int count = 0;
+        for (Path file : list(storage.resolve("wallets"), walletFile)) {
+            String name = file.getFileName().toString();
+            UUID userId = UUID.fromString(name.substring(0, name.indexOf('_')));
+            Wallet wallet;
+            try {
+                wallet = codec.read(file, Wallet.class);
+            } catch (IOException e) {
+                logger.warn("Skipping unreadable wallet: {}", userId, e);
+                continue;
+            }
+            List<Transaction> embedded = wallet.getTransactionHistory() != null
+                    ? List.copyOf(wallet.getTransactionHistory()) : List.of();
+            wallets.save(wallet);
+            try (Stream<Transaction> history = Stream.concat(embedded.stream(),
+                    TransactionJournal.readSnapshot(journals, userId, format))) {
+                transactionCount += appendInChunks(userId, history);
+            }
+            owners.add(userId);
+            count++;
+        }
+        return count;
+    }
+
+    // Журналы транзакций владельцев без кошелька (например, отправленные переводы)
+    private void importJournals(Set<UUID> owners) {
+        Path journals = storage.resolve("users");
+        if (!Files.isDirectory(journals)) {
+            return;
+        }
+        for (UUID owner : TransactionJournal.owners(journals)) {
+            if (owners.contains(owner)) {
+                continue;
+            }
+            try (Stream<Transaction> history = TransactionJournal.readSnapshot(journals, owner, format)) {
+                transactionCount += appendInChunks(owner, history);
+            }
+        }
+    }
+
+    private int appendInChunks(UUID owner, Stream<Transaction> history) {
+        List<Transaction> chunk = new ArrayList<>(CHUNK_SIZE);
+        int count = 0;
+        for (Iterator<Transaction> it = history.iterator(); it.hasNext(); ) {
+            chunk.add(it.next());
+            if (chunk.size() == CHUNK_SIZE || !it.hasNext()) {
+                wallets.appendTransactions(owner, chunk);
+                count += chunk.size();
+                chunk.clear();
+            }
+        }
+        return count;
+    }
+
+    private int importTransfers() {
+        Path queues = storage.resolve("transfers");
+        int count = 0;
+        for (UUID userId : TransferInbox.owners(queues)) {
+            for (TransferFile transfer : TransferInbox.readSnapshot(queues, userId, true, format)) {
+                transactions.saveTransferFile(transfer, userId, true);
+                count++;
+            }
+            for (TransferFile transfer : TransferInbox.readSnapshot(queues, userId, false, format)) {
+                transactions.saveTransferFile(transfer, userId, false);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Path> list(Path dir, Pattern name) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> name.matcher(f.getFileName().toString()).matches()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package dev.micartera.infrastructure.repository.jdbc;
+
+import dev.micartera.domain.model.Category;
+import dev.micartera.domain.model.Transaction;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Отображение Transaction на строку таблицы transactions (общее для репозиториев кошельков и транзакций)
+class TransactionRows {
+    static final String COLUMNS = "id, type, amount, category_id, category_name, category_type, "
+            + "created, status, description, sender_id, receiver_id, expires";
+    static final String MERGE = "MERGE INTO transactions (owner_id, " + COLUMNS + ") KEY (owner_id, id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final int BATCH_SIZE = 1000;
+
+    private TransactionRows() {
+    }
+
+    // Пакетная запись; изменение статуса существующей транзакции перезаписывает строку
+    static void merge(Connection connection, UUID ownerId, List<Transaction> transactions) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(MERGE)) {
+            int pending = 0;
+            for (Transaction transaction : transactions) {
+                bind(statement, ownerId, transaction);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    static void bind(PreparedStatement statement, UUID ownerId, Transaction transaction) throws SQLException {
+        Category category = transaction.getCategory();
+        statement.setObject(1, ownerId);
+        statement.setObject(2, transaction.getId());
+        statement.setString(3, transaction.getType().name());
+        statement.setBigDecimal(4, transaction.getAmount());
+        statement.setObject(5, category != null ? category.getId() : null);
+        statement.setString(6, category != null ? category.getName() : null);
+        statement.setString(7, category != null && category.getType() != null ? category.getType().name() : null);
+        statement.setObject(8, transaction.getCreated());
+        statement.setString(9, transaction.getStatus().name());
+        statement.setString(10, transaction.getDescription());
+        statement.setObject(11, transaction.getSenderId());
+        statement.setObject(12, transaction.getReceiverId());
+        statement.setObject(13, transaction.getExpires());
+    }
+
+    static Transaction read(ResultSet rs) throws SQLException {
+        UUID categoryId = rs.getObject("category_id", UUID.class);
+        String categoryType = rs.getString("category_type");
+        Category category = categoryId == null ? null : new Category(categoryId, rs.getString("category_name"),
+                categoryType != null ? Category.CategoryType.valueOf(categoryType) : null);
+        return new Transaction(
+                rs.getObject("id", UUID.class),
+                Transaction.TransactionType.valueOf(rs.getString("type")),
+                rs.getBigDecimal("amount"),
+                category,
+                rs.getObject("created", LocalDateTime.class),
+                Transaction.TransactionStatus.valueOf(rs.getString("status")),
+                rs.getString("description"),
+                rs.getObject("sender_id", UUID.class),
+                rs.getObject("receiver_id", UUID.class),
+                rs.getObject("expires", LocalDateTime.class));
+    }
+
+    static List<Transaction> readAll(PreparedStatement statement) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                transactions.add(read(rs));
+            }
+        }
+        return transactions;
+    }
+
+    // Ленивое чтение результата запроса; закрытие потока закрывает запрос и возвращает соединение в пул
+    static Stream<Transaction> stream(Connection connection, PreparedStatement statement) throws SQLException {
+        ResultSet rs = statement.executeQuery();
+        Spliterator<Transaction> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Transaction> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(read(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Could not read transactions", e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try (connection; statement; rs) {
+                // ресурсы закрываются в обратном порядке
+            } catch (SQLException e) {
+                throw new RuntimeException("Could not close transaction query", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package dev.micartera.infrastructure.repository.spi;
+
+import dev.micartera.infrastructure.repository.TransactionRepository;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
+
+// Обертка над репозиториями хранилища (кэш, метрики, отложенная запись). Реализации регистрируются в
+// META-INF/services/dev.micartera.infrastructure.repository.spi.RepositoryDecorator и подключаются
+// по имени параметром app.storage.decorators; репозитории, которые декоратор не меняет, возвращаются как есть
+public interface RepositoryDecorator {
+    String getName();
+
+    default UserRepository decorate(UserRepository repository) {
+        return repository;
+    }
+
+    default WalletRepository decorate(WalletRepository repository) {
+        return repository;
+    }
+
+    default TransactionRepository decorate(TransactionRepository repository) {
+        return repository;
+    }
+}
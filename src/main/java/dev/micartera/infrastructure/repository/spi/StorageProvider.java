@@ -0,0 +1,22 @@
+package dev.micartera.infrastructure.repository.spi;
+
+import dev.micartera.infrastructure.repository.TransactionRepository;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
+
+// Хранилище данных приложения. Реализации регистрируются в
+// META-INF/services/dev.micartera.infrastructure.repository.spi.StorageProvider
+// и выбираются по имени параметром app.storage.backend
+public interface StorageProvider {
+    String getName();
+
+    UserRepository createUserRepository();
+
+    WalletRepository createWalletRepository();
+
+    TransactionRepository createTransactionRepository();
+
+    // Освобождение ресурсов хранилища при завершении приложения
+    default void close() {
+    }
+}
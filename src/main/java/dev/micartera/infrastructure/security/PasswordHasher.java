@@ -0,0 +1,123 @@
+package dev.micartera.infrastructure.security;
+
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Хеширование и проверка паролей bcrypt вне вызывающего потока. Запросы принимают виртуальные
+// потоки: каждый ждет разрешения семафора (не более in-flight задач одновременно) и отдает расчет
+// в пул платформенных потоков по числу ядер, поэтому массовые входы загружают все ядра,
+// а очередь не растет без ограничений.
+public class PasswordHasher {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+    private static final int DEFAULT_COST = 10;
+    private static volatile PasswordHasher configured;
+    private final int cost;
+    private final ExecutorService workers;
+    private final ExecutorService front = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+
+    public PasswordHasher(int cost, int threads) {
+        if (cost < 4 || cost > 31) {
+            throw new IllegalArgumentException("bcrypt cost must be between 4 and 31: " + cost);
+        }
+        this.cost = cost;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "password-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.inFlight = new Semaphore(threads * 4);
+    }
+
+    // Общий экземпляр с параметрами security.password.bcrypt.* из application.properties
+    public static PasswordHasher configured() {
+        if (configured == null) {
+            synchronized (PasswordHasher.class) {
+                if (configured == null) {
+                    configured = new PasswordHasher(
+                            ApplicationConfig.getIntProperty("security.password.bcrypt.cost", DEFAULT_COST),
+                            ApplicationConfig.getIntProperty("security.password.bcrypt.threads",
+                                    Runtime.getRuntime().availableProcessors()));
+                }
+            }
+        }
+        return configured;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public CompletableFuture<String> hashAsync(String password) {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    public CompletableFuture<Boolean> verifyAsync(String password, String hash) {
+        return submit(() -> {
+            try {
+                return BCrypt.checkpw(password, hash);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Malformed password hash");
+                return false;
+            }
+        });
+    }
+
+    public String hash(String password) {
+        return hashAsync(password).join();
+    }
+
+    public boolean verify(String password, String hash) {
+        return verifyAsync(password, hash).join();
+    }
+
+    // Хеш создан с другой стоимостью (формат $2a$NN$...) и должен быть пересчитан при входе
+    public boolean needsRehash(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$') {
+            return true;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6)) != cost;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public void close() {
+        front.shutdown();
+        workers.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            front.execute(() -> {
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                try {
+                    result.complete(workers.submit(work::get).get());
+                } catch (ExecutionException e) {
+                    result.completeExceptionally(e.getCause());
+                } catch (InterruptedException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
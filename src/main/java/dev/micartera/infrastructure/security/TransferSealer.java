@@ -0,0 +1,280 @@
+package dev.micartera.infrastructure.security;
+
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.storage.AtomicFileWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Запечатывание содержимого перевода (TransferFile.encryptedData) в AES-GCM: сумма и логины
+// шифруются и в хранилище открыто не пишутся, id перевода и получателя остаются открытыми для
+// поиска и входят в проверяемые данные (AAD), поэтому запись нельзя подменить или переставить
+// в другую очередь незаметно. Шифр - "AES/GCM/NoPadding"
+// поставщика JDK (на x86 использует AES-NI и CLMUL). У каждого потока свой Cipher и свои
+// буферы: при обработке пачки записей шифр и буферы не создаются заново для каждой записи.
+// Формат: версия (1 байт), IV (12 байт), шифротекст с тегом (16 байт).
+public class TransferSealer {
+    private static final Logger logger = LoggerFactory.getLogger(TransferSealer.class);
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final byte VERSION = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final int HEADER_LENGTH = 1 + IV_LENGTH;
+    public static final int OVERHEAD = HEADER_LENGTH + TAG_BITS / 8;
+    private static final int INITIAL_BUFFER = 1024;
+    // Ключ у каждого хранилища свой: экземпляры по источнику ключа (параметр или файл ключа)
+    private static final Map<String, TransferSealer> configured = new ConcurrentHashMap<>();
+
+    private final SecretKey key;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    public TransferSealer(byte[] key) {
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException("AES key must be 16, 24 or 32 bytes: " + key.length);
+        }
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    // Экземпляр для текущих настроек: ключ из security.transfer.key (Base64) или из файла
+    // keys/transfer.key хранилища app.storage.path; файла нет - создается новый ключ
+    public static TransferSealer configured() {
+        String property = ApplicationConfig.getProperty("security.transfer.key", "");
+        if (!property.isBlank()) {
+            return configured.computeIfAbsent("property:" + property.trim(),
+                    source -> new TransferSealer(Base64.getDecoder().decode(property.trim())));
+        }
+        Path file = Path.of(ApplicationConfig.getProperty("app.storage.path"), "keys", "transfer.key")
+                .toAbsolutePath().normalize();
+        return configured.computeIfAbsent(file.toString(), source -> new TransferSealer(keyFile(file)));
+    }
+
+    // Запись перевода для хранилища: сумма и логины только в encryptedData
+    public TransferFile seal(TransferFile transfer) {
+        Worker worker = workers.get();
+        ByteBuffer plain = worker.plain(transfer);
+        ByteBuffer sealed = worker.sealed(plain.remaining());
+        seal(plain, aad(worker, transfer), sealed);
+        sealed.flip();
+        byte[] result = new byte[sealed.remaining()];
+        sealed.get(result);
+        return new TransferFile(transfer.getTransactionId(), transfer.getCreated(), null, null,
+                transfer.getReceiverId(), null, result);
+    }
+
+    // Прочитанная запись с расшифрованными суммой и логинами. Пусто - запись без печати, изменена
+    // вне приложения или ее открытые поля не совпадают с запечатанными
+    public Optional<TransferFile> open(TransferFile stored) {
+        if (stored.getEncryptedData() == null) {
+            return Optional.empty();
+        }
+        Worker worker = workers.get();
+        ByteBuffer sealed = ByteBuffer.wrap(stored.getEncryptedData());
+        ByteBuffer opened = worker.opened(sealed.remaining());
+        try {
+            open(sealed, aad(worker, stored), opened);
+        } catch (AEADBadTagException e) {
+            return Optional.empty();
+        }
+        opened.flip();
+        if ((stored.getAmount() != null || stored.getSenderLogin() != null || stored.getReceiverLogin() != null)
+                && !opened.equals(worker.plain(stored))) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Worker.read(stored, opened));
+        } catch (BufferUnderflowException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Шифрование plaintext в out (с позиции out): заголовок, шифротекст и тег.
+    // Возвращает число записанных байт; в out должно быть plaintext.remaining() + OVERHEAD байт.
+    public int seal(ByteBuffer plaintext, ByteBuffer aad, ByteBuffer out) {
+        Worker worker = workers.get();
+        int start = out.position();
+        worker.nextIv();
+        out.put(VERSION).put(worker.iv);
+        try {
+            worker.cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, worker.iv));
+            if (aad != null) {
+                worker.cipher.updateAAD(aad);
+            }
+            worker.cipher.doFinal(plaintext, out);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not seal transfer payload", e);
+        }
+        return out.position() - start;
+    }
+
+    // Расшифровка запечатанной записи в out; AEADBadTagException - запись или AAD изменены
+    public int open(ByteBuffer sealed, ByteBuffer aad, ByteBuffer out) throws AEADBadTagException {
+        Worker worker = workers.get();
+        if (sealed.remaining() < OVERHEAD || sealed.get() != VERSION) {
+            throw new AEADBadTagException("Unsupported sealed transfer payload");
+        }
+        sealed.get(worker.iv);
+        int start = out.position();
+        try {
+            worker.cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, worker.iv));
+            if (aad != null) {
+                worker.cipher.updateAAD(aad);
+            }
+            worker.cipher.doFinal(sealed, out);
+        } catch (AEADBadTagException e) {
+            throw e;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not open transfer payload", e);
+        }
+        return out.position() - start;
+    }
+
+    private static ByteBuffer aad(Worker worker, TransferFile transfer) {
+        ByteBuffer aad = worker.aad.clear();
+        putUuid(aad, transfer.getTransactionId());
+        putUuid(aad, transfer.getReceiverId());
+        return aad.flip();
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id != null ? id.getMostSignificantBits() : 0);
+        buffer.putLong(id != null ? id.getLeastSignificantBits() : 0);
+    }
+
+    private static byte[] keyFile(Path file) {
+        try {
+            if (Files.exists(file)) {
+                return Base64.getDecoder().decode(Files.readString(file, StandardCharsets.US_ASCII).trim());
+            }
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            Files.createDirectories(file.getParent());
+            try {
+                // каталог закрыт до записи ключа: временный файл тоже недоступен другим
+                Files.setPosixFilePermissions(file.getParent(), PosixFilePermissions.fromString("rwx------"));
+                AtomicFileWriter.write(file, Base64.getEncoder().encode(key));
+                Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // не POSIX - права остаются по умолчанию
+                AtomicFileWriter.write(file, Base64.getEncoder().encode(key));
+            }
+            logger.info("Transfer sealing key created: {}", file);
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read transfer sealing key: " + file, e);
+        }
+    }
+
+    // Состояние потока: шифр, IV и буферы растут до наибольшей записи и переиспользуются
+    private static class Worker {
+        private final Cipher cipher;
+        private final byte[] iv = new byte[IV_LENGTH];
+        private final ByteBuffer ivFields = ByteBuffer.wrap(iv);
+        // IV по NIST SP 800-38D (8.2.1): случайное поле потока и счетчик вызовов - без обращения
+        // к SecureRandom на каждую запись
+        private final int fixedField;
+        private long counter;
+        private final ByteBuffer aad = ByteBuffer.allocate(32);
+        private ByteBuffer plain = ByteBuffer.allocate(INITIAL_BUFFER);
+        private ByteBuffer sealed = ByteBuffer.allocate(INITIAL_BUFFER + OVERHEAD);
+        private ByteBuffer opened = ByteBuffer.allocate(INITIAL_BUFFER);
+
+        private Worker() {
+            try {
+                cipher = Cipher.getInstance(TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("AES-GCM is not available", e);
+            }
+            SecureRandom random = new SecureRandom();
+            fixedField = random.nextInt();
+            counter = random.nextLong();
+        }
+
+        private void nextIv() {
+            ivFields.clear();
+            ivFields.putInt(fixedField).putLong(counter++);
+        }
+
+        // Открытое содержимое: сумма (масштаб и байты без масштаба), логины отправителя и получателя.
+        // Сумма без хвостовых нулей: хранилище может вернуть ее с другим масштабом (DECFLOAT в H2)
+        private ByteBuffer plain(TransferFile transfer) {
+            BigDecimal amount = transfer.getAmount() != null ? transfer.getAmount().stripTrailingZeros()
+                    : BigDecimal.ZERO;
+            while (true) {
+                try {
+                    ByteBuffer buffer = plain.clear();
+                    byte[] unscaled = amount.unscaledValue().toByteArray();
+                    buffer.putInt(amount.scale()).put((byte) unscaled.length).put(unscaled);
+                    putString(buffer, transfer.getSenderLogin());
+                    putString(buffer, transfer.getReceiverLogin());
+                    return buffer.flip();
+                } catch (BufferOverflowException e) {
+                    plain = ByteBuffer.allocate(plain.capacity() * 2);
+                }
+            }
+        }
+
+        private ByteBuffer sealed(int plainLength) {
+            if (sealed.capacity() < plainLength + OVERHEAD) {
+                sealed = ByteBuffer.allocate(plainLength + OVERHEAD);
+            }
+            return sealed.clear();
+        }
+
+        private ByteBuffer opened(int sealedLength) {
+            if (opened.capacity() < sealedLength) {
+                opened = ByteBuffer.allocate(sealedLength);
+            }
+            return opened.clear();
+        }
+
+        // Обратно к полям записи; сумма без отрицательного масштаба (30, а не 3E+1)
+        private static TransferFile read(TransferFile stored, ByteBuffer opened) {
+            int scale = opened.getInt();
+            byte[] unscaled = new byte[Byte.toUnsignedInt(opened.get())];
+            opened.get(unscaled);
+            BigDecimal amount = new BigDecimal(new BigInteger(unscaled), scale);
+            if (amount.scale() < 0) {
+                amount = amount.setScale(0);
+            }
+            String senderLogin = getString(opened);
+            String receiverLogin = getString(opened);
+            return new TransferFile(stored.getTransactionId(), stored.getCreated(), senderLogin, receiverLogin,
+                    stored.getReceiverId(), amount, stored.getEncryptedData());
+        }
+
+        private static String getString(ByteBuffer buffer) {
+            byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(bytes);
+            return bytes.length > 0 ? new String(bytes, StandardCharsets.UTF_8) : null;
+        }
+
+        private static void putString(ByteBuffer buffer, String value) {
+            byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.micartera.infrastructure.storage;
+
+import dev.micartera.infrastructure.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+// Запись файла целиком без риска получить "оборванный" файл при сбое:
+// данные пишутся во временный файл рядом с целевым, сбрасываются на диск
+// и атомарно переименовываются поверх целевого файла
+public class AtomicFileWriter {
+    private static final Logger logger = LoggerFactory.getLogger(AtomicFileWriter.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // JSON сериализуется прямо во временный файл, без сборки всего содержимого в памяти
+    public static void writeJson(Path target, Object value) throws IOException {
+        write(target, out -> JsonUtils.write(out, value));
+    }
+
+    // То же в формате хранилища (JSON или Smile)
+    public static void writeValue(Path target, Object value, StorageCodec codec) throws IOException {
+        write(target, out -> codec.write(out, value));
+    }
+
+    public static void write(Path target, byte[] data) throws IOException {
+        write(target, out -> out.write(data));
+    }
+
+    public static void write(Path target, Content content) throws IOException {
+        write(target, content, tmp -> { });
+    }
+
+    // beforeMove выполняется между сбросом временного файла и переименованием; тесты имитируют им сбой
+    static void write(Path target, Content content, Step beforeMove) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+                content.writeTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            beforeMove.run(tmp);
+            move(tmp, target);
+            syncDirectory(dir);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void move(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.warn("Atomic move is not supported for {}, falling back to replace", target);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Фиксируем на диске само переименование (поддерживается не на всех ОС)
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.trace("Directory sync is not supported: {}", dir);
+        }
+    }
+
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    interface Step {
+        void run(Path tmp) throws IOException;
+    }
+}
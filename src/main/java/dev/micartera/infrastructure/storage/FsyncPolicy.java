@@ -0,0 +1,15 @@
+package dev.micartera.infrastructure.storage;
+
+// Когда сбрасывать дописанные в журнал данные на диск
+public enum FsyncPolicy {
+    ALWAYS,   // force() после каждой записи
+    INTERVAL, // фоновый force() измененных файлов раз в app.storage.journal.fsync-interval-ms
+    NEVER;    // полагаемся на ОС
+
+    public static FsyncPolicy fromProperty(String value) {
+        if (value == null || value.isBlank()) {
+            return ALWAYS;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
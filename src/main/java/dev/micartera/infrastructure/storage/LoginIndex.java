@@ -0,0 +1,237 @@
+package dev.micartera.infrastructure.storage;
+
+import dev.micartera.domain.model.User;
+import dev.micartera.infrastructure.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Индекс login -> userId. Хранится как журнал строк "login\tuuid" ("login\t-" - удаление),
+// загружается целиком в память при старте и дописывается при каждом изменении. Смена логина
+// пользователя удаляет прежний логин; журнал, разросшийся из-за перезаписей, сжимается.
+public class LoginIndex {
+    private static final Logger logger = LoggerFactory.getLogger(LoginIndex.class);
+    private static final String INDEX_FILE = "logins.idx";
+    private static final String REMOVED = "-";
+    private static final Pattern USER_FILE = Pattern.compile("[0-9a-fA-F-]{36}\\.json");
+    private final Path usersDir;
+    private final Path indexFile;
+    private final Map<String, UUID> logins = new ConcurrentHashMap<>();
+    private final Map<UUID, String> loginsByUser = new ConcurrentHashMap<>();
+    private int journalLines;
+
+    private LoginIndex(Path usersDir) {
+        this.usersDir = usersDir;
+        this.indexFile = usersDir.resolve(INDEX_FILE);
+    }
+
+    // Индекс каталога пользователей, загруженный с диска (или перестроенный по файлам)
+    public static LoginIndex open(Path usersDir) {
+        LoginIndex index = new LoginIndex(usersDir);
+        index.load();
+        return index;
+    }
+
+    public Optional<UUID> find(String login) {
+        return Optional.ofNullable(logins.get(login));
+    }
+
+    public Optional<String> loginOf(UUID userId) {
+        return Optional.ofNullable(loginsByUser.get(userId));
+    }
+
+    public boolean contains(String login) {
+        return logins.containsKey(login);
+    }
+
+    public int size() {
+        return logins.size();
+    }
+
+    public synchronized void put(String login, UUID userId) {
+        if (userId.equals(logins.get(login))) {
+            return;
+        }
+        String previous = loginsByUser.get(userId);
+        append(previous != null ? previous + "\t" + REMOVED + "\n" + login + "\t" + userId
+                : login + "\t" + userId);
+        if (previous != null) {
+            journalLines++;
+            unmap(previous);
+        }
+        map(login, userId);
+        compactIfGrown();
+    }
+
+    // Пачка записей одной дозаписью журнала и одним fsync
+    public synchronized void putAll(Map<String, UUID> entries) {
+        StringBuilder records = new StringBuilder();
+        List<String> renamed = new ArrayList<>();
+        int count = 0;
+        for (Map.Entry<String, UUID> entry : entries.entrySet()) {
+            if (!entry.getValue().equals(logins.get(entry.getKey()))) {
+                String previous = loginsByUser.get(entry.getValue());
+                if (previous != null) {
+                    records.append(previous).append('\t').append(REMOVED).append('\n');
+                    renamed.add(previous);
+                    count++;
+                }
+                records.append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        append(records.substring(0, records.length() - 1));
+        journalLines += count - 1;
+        renamed.forEach(this::unmap);
+        entries.forEach(this::map);
+        compactIfGrown();
+    }
+
+    public synchronized void remove(String login) {
+        if (!logins.containsKey(login)) {
+            return;
+        }
+        append(login + "\t" + REMOVED);
+        unmap(login);
+        compactIfGrown();
+    }
+
+    // Полная перестройка индекса по файлам пользователей
+    public synchronized void rebuild() {
+        logins.clear();
+        loginsByUser.clear();
+        try (Stream<Path> files = Files.list(usersDir)) {
+            files.filter(f -> USER_FILE.matcher(f.getFileName().toString()).matches())
+                    .forEach(this::indexUserFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rebuild login index", e);
+        }
+        compact();
+        logger.info("Login index rebuilt: {} users", logins.size());
+    }
+
+    private void indexUserFile(Path file) {
+        try {
+            User user = JsonUtils.read(file, User.class);
+            map(user.getLogin(), user.getId());
+        } catch (IOException e) {
+            logger.error("Error reading user file: {}", file.getFileName(), e);
+        }
+    }
+
+    private synchronized void load() {
+        if (!Files.exists(indexFile)) {
+            logger.info("Login index not found, rebuilding from user files");
+            rebuild();
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                applyLine(line);
+                journalLines++;
+            }
+            if (Files.size(indexFile) > 0 && !endsWithNewline()) {
+                throw new IllegalStateException("truncated last record");
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Login index is corrupt ({}), rebuilding from user files", e.getMessage());
+            rebuild();
+            return;
+        }
+        compactIfGrown();
+    }
+
+    // Журнал разросся из-за перезаписей - сжимаем до актуального состояния
+    private void compactIfGrown() {
+        if (journalLines > logins.size() * 2 + 64) {
+            compact();
+        }
+    }
+
+    // У пользователя один логин: прежний снимается (и при чтении журнала, где переименование
+    // было записано без удаления старого логина)
+    private void map(String login, UUID userId) {
+        UUID replaced = logins.put(login, userId);
+        if (replaced != null && !replaced.equals(userId)) {
+            loginsByUser.remove(replaced, login);
+        }
+        String previous = loginsByUser.put(userId, login);
+        if (previous != null && !previous.equals(login)) {
+            logins.remove(previous, userId);
+        }
+    }
+
+    private void unmap(String login) {
+        UUID userId = logins.remove(login);
+        if (userId != null) {
+            loginsByUser.remove(userId, login);
+        }
+    }
+
+    private void applyLine(String line) {
+        int tab = line.indexOf('\t');
+        if (tab <= 0) {
+            throw new IllegalStateException("malformed record: " + line);
+        }
+        String login = line.substring(0, tab);
+        String value = line.substring(tab + 1);
+        if (REMOVED.equals(value)) {
+            unmap(login);
+        } else {
+            map(login, UUID.fromString(value));
+        }
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private void append(String record) {
+        try (FileChannel channel = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            journalLines++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not update login index", e);
+        }
+    }
+
+    // Перезапись индекса целиком с атомарной заменой файла
+    private void compact() {
+        StringBuilder sb = new StringBuilder();
+        logins.forEach((login, id) -> sb.append(login).append('\t').append(id).append('\n'));
+        try {
+            AtomicFileWriter.write(indexFile, sb.toString().getBytes(StandardCharsets.UTF_8));
+            journalLines = logins.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write login index", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package dev.micartera.infrastructure.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Последовательное чтение записей файла журнала, разделенных байтом-разделителем.
+// Каждая запись возвращается вместе с завершающим разделителем; хвост без разделителя
+// (оборванная запись) пропускается. Поток нужно закрыть.
+class RecordReader {
+    static Stream<ByteBuffer> records(Path file, long from, byte separator) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(from)));
+        Spliterator<ByteBuffer> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+            @Override
+            public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+                try {
+                    int b;
+                    while ((b = in.read()) != -1) {
+                        record.write(b);
+                        if ((byte) b == separator) {
+                            action.accept(ByteBuffer.wrap(record.toByteArray()));
+                            record.reset();
+                            return true;
+                        }
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not read journal file: " + file, e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // То же без копирования файла в кучу: записи - срезы отображенного в память файла,
+    // страницы которого остаются в кэше ОС между чтениями
+    static Stream<ByteBuffer> mapped(Path file, long from, byte separator) throws IOException {
+        ByteBuffer buffer = map(file, from);
+        Spliterator<ByteBuffer> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int start;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+                for (int i = start; i < buffer.limit(); i++) {
+                    if (buffer.get(i) == separator) {
+                        action.accept(buffer.slice(start, i + 1 - start));
+                        start = i + 1;
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    // Отображение остается действительным после закрытия канала
+    static MappedByteBuffer map(Path file, long from) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size() - from;
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Journal file is too large to map: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package dev.micartera.infrastructure.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Сериализация моделей в формате хранилища (JSON или Smile) с теми же модулями, что и JsonUtils.
+// Один экземпляр на формат, Reader/Writer для каждого типа создаются один раз.
+public class StorageCodec {
+    private static final Map<StorageFormat, StorageCodec> codecs = new ConcurrentHashMap<>();
+    @Getter
+    private final StorageFormat format;
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private StorageCodec(StorageFormat format) {
+        this.format = format;
+        this.mapper = new ObjectMapper(format.createFactory());
+        mapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(new BlackbirdModule());
+    }
+
+    public static StorageCodec forFormat(StorageFormat format) {
+        return codecs.computeIfAbsent(format, StorageCodec::new);
+    }
+
+    public static StorageCodec configured() {
+        return forFormat(StorageFormat.configured());
+    }
+
+    public byte[] toBytes(Object obj) throws IOException {
+        return writer(obj.getClass()).writeValueAsBytes(obj);
+    }
+
+    // Запись в поток по мере сериализации; поток не закрывается
+    public void write(OutputStream out, Object obj) throws IOException {
+        writer(obj.getClass()).writeValue(out, obj);
+    }
+
+    public <T> T fromBytes(byte[] data, Class<T> clazz) throws IOException {
+        return reader(clazz).readValue(data);
+    }
+
+    // Буфер вне кучи (отображенный файл) читается напрямую, без промежуточного массива
+    public <T> T read(ByteBuffer buffer, Class<T> clazz) throws IOException {
+        if (buffer.hasArray()) {
+            return reader(clazz).readValue(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return reader(clazz).readValue(new ByteBufferBackedInputStream(buffer.duplicate()));
+    }
+
+    public <T> T read(InputStream in, Class<T> clazz) throws IOException {
+        return reader(clazz).readValue(in);
+    }
+
+    public <T> T read(Path file, Class<T> clazz) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, clazz);
+        }
+    }
+
+    public <T> MappingIterator<T> readValues(InputStream in, Class<T> clazz) throws IOException {
+        return reader(clazz).readValues(in);
+    }
+
+    private ObjectReader reader(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, mapper::readerFor);
+    }
+
+    private ObjectWriter writer(Class<?> clazz) {
+        return writers.computeIfAbsent(clazz,
+                type -> mapper.writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+    }
+}
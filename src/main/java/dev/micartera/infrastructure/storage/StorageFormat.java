@@ -0,0 +1,40 @@
+package dev.micartera.infrastructure.storage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import lombok.Getter;
+
+// Формат файлов хранилища (app.storage.format).
+// Записи журнала транзакций разделяются байтом, который не встречается внутри записи:
+// '\n' для JSON и маркер конца документа 0xFF для Smile.
+@Getter
+public enum StorageFormat {
+    JSON(".json", ".jsonl", (byte) '\n'),
+    SMILE(".smile", ".smile", (byte) 0xFF);
+
+    private final String extension;
+    private final String journalExtension;
+    private final byte recordSeparator;
+
+    StorageFormat(String extension, String journalExtension, byte recordSeparator) {
+        this.extension = extension;
+        this.journalExtension = journalExtension;
+        this.recordSeparator = recordSeparator;
+    }
+
+    JsonFactory createFactory() {
+        return this == SMILE ? new SmileFactory() : new JsonFactory();
+    }
+
+    public static StorageFormat configured() {
+        return fromProperty(ApplicationConfig.getProperty("app.storage.format"));
+    }
+
+    public static StorageFormat fromProperty(String value) {
+        if (value == null || value.isBlank()) {
+            return JSON;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,161 @@
+package dev.micartera.infrastructure.storage;
+
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Перевод кошельков, журналов транзакций и очередей переводов из одного формата хранилища в другой:
+//   java -cp miCartera.jar dev.micartera.infrastructure.storage.StorageFormatMigration json smile
+// Запускается при остановленном приложении; после переноса нужно указать новый формат в app.storage.format.
+// Индекс transactions.idx удаляется - смещения записей меняются, он перестраивается при следующем запуске.
+public class StorageFormatMigration {
+    private static final Logger logger = LoggerFactory.getLogger(StorageFormatMigration.class);
+    private static final String WALLET_SUFFIX = "_wallet";
+    private static final String JOURNAL_SUFFIX = "_transactions";
+    private static final String INDEX_FILE = "transactions.idx";
+    private final Path storage;
+    private final StorageFormat from;
+    private final StorageFormat to;
+    private final StorageCodec source;
+    private final StorageCodec target;
+    private int converted;
+
+    public StorageFormatMigration(Path storage, StorageFormat from, StorageFormat to) {
+        this.storage = storage;
+        this.from = from;
+        this.to = to;
+        this.source = StorageCodec.forFormat(from);
+        this.target = StorageCodec.forFormat(to);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: StorageFormatMigration <json|smile> <json|smile>");
+            System.exit(1);
+        }
+        ApplicationConfig.initialize();
+        StorageFormat from = StorageFormat.fromProperty(args[0]);
+        StorageFormat to = StorageFormat.fromProperty(args[1]);
+        int files = new StorageFormatMigration(Path.of(ApplicationConfig.getProperty("app.storage.path")), from, to)
+                .migrate();
+        System.out.printf("Converted %d files, set app.storage.format=%s%n", files, to.name().toLowerCase());
+    }
+
+    public int migrate() throws IOException {
+        if (from == to) {
+            return 0;
+        }
+        converted = 0;
+        try {
+            convertWallets(storage.resolve("wallets"));
+            convertJournals(storage.resolve("users"));
+            convertTransfers(storage.resolve("transfers"));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("Storage converted from {} to {}: {} files", from, to, converted);
+        return converted;
+    }
+
+    private void convertWallets(Path dir) throws IOException {
+        for (Path file : list(dir, WALLET_SUFFIX + from.getExtension())) {
+            convertDocument(file, Wallet.class);
+        }
+    }
+
+    private void convertTransfers(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        // очереди переводов (in/out) - по записям, файлы старого формата - целиком
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.equals("in" + from.getJournalExtension()) || name.equals("out" + from.getJournalExtension())) {
+                convertSegment(file, TransferInbox.Entry.class);
+            } else if (name.endsWith(from.getExtension())) {
+                convertDocument(file, TransferFile.class);
+            }
+        }
+    }
+
+    private void convertJournals(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> journals;
+        try (Stream<Path> files = Files.list(dir)) {
+            journals = files.filter(Files::isDirectory)
+                    .filter(f -> f.getFileName().toString().endsWith(JOURNAL_SUFFIX))
+                    .toList();
+        }
+        for (Path journal : journals) {
+            for (Path segment : list(journal, from.getJournalExtension())) {
+                convertSegment(segment, Transaction.class);
+            }
+        }
+        Files.deleteIfExists(dir.resolve(INDEX_FILE));
+    }
+
+    private <T> void convertDocument(Path file, Class<T> type) throws IOException {
+        T value = source.read(file, type);
+        AtomicFileWriter.writeValue(replaceExtension(file, from.getExtension(), to.getExtension()), value, target);
+        Files.delete(file);
+        converted++;
+    }
+
+    // Записи переносятся по одной в исходном порядке; поврежденные записи и оборванный хвост отбрасываются
+    private void convertSegment(Path file, Class<?> type) throws IOException {
+        Path segment = replaceExtension(file, from.getJournalExtension(), to.getJournalExtension());
+        try (Stream<ByteBuffer> records = RecordReader.records(file, 0, from.getRecordSeparator())) {
+            AtomicFileWriter.write(segment, out -> {
+                for (ByteBuffer record : (Iterable<ByteBuffer>) records::iterator) {
+                    writeRecord(out, file, record, type);
+                }
+            });
+        }
+        Files.delete(file);
+        converted++;
+    }
+
+    private void writeRecord(OutputStream out, Path file, ByteBuffer record, Class<?> type) throws IOException {
+        Object value;
+        try {
+            value = source.read(record, type);
+        } catch (IOException e) {
+            logger.warn("Skipping damaged record: {}", file);
+            return;
+        }
+        target.write(out, value);
+        out.write(to.getRecordSeparator());
+    }
+
+    private static List<Path> list(Path dir, String suffix) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    private static Path replaceExtension(Path file, String from, String to) {
+        String name = file.getFileName().toString();
+        return file.resolveSibling(name.substring(0, name.length() - from.length()) + to);
+    }
+}
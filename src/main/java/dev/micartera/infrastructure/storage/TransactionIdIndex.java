@@ -0,0 +1,262 @@
+package dev.micartera.infrastructure.storage;
+
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Глобальный индекс (владелец, transactionId) -> (месячный сегмент журнала, смещение и длина записи).
+// Один id может быть в журналах нескольких владельцев (перевод - у отправителя и получателя).
+// Хранится как дописываемый файл строк "txId\townerId\tyyyy-MM\toffset\tlength" рядом с журналами;
+// строка без txId со смещением -1 означает сброс записей сегмента после его перезаписи.
+// Индекс восстановим по журналам, поэтому на диск принудительно не сбрасывается:
+// после сбоя недостающий хвост доиндексируется при старте (см. TransactionJournal).
+public class TransactionIdIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionIdIndex.class);
+    private static final String INDEX_FILE = "transactions.idx";
+    private static final long RESET = -1;
+    private final Path indexFile;
+    // transactionId -> владелец -> запись
+    private final Map<UUID, Map<UUID, Location>> locations = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<YearMonth, Long>> indexedLength = new ConcurrentHashMap<>();
+    // id транзакций каждого сегмента владельца: сброс сегмента не перебирает весь индекс
+    private final Map<UUID, Map<YearMonth, Set<UUID>>> segmentIds = new HashMap<>();
+    private int fileLines;
+    private int obsoleteLines;
+
+    private TransactionIdIndex(Path dir) {
+        this.indexFile = dir.resolve(INDEX_FILE);
+    }
+
+    // Индекс каталога журналов, загруженный с диска; недостающее доиндексирует TransactionJournal
+    public static TransactionIdIndex open(Path dir) {
+        TransactionIdIndex index = new TransactionIdIndex(dir);
+        index.load();
+        return index;
+    }
+
+    // Запись любого из владельцев транзакции
+    public Optional<Location> find(UUID transactionId) {
+        return locations.getOrDefault(transactionId, Map.of()).values().stream().findFirst();
+    }
+
+    public Optional<Location> find(UUID ownerId, UUID transactionId) {
+        return Optional.ofNullable(locations.getOrDefault(transactionId, Map.of()).get(ownerId));
+    }
+
+    // Длина сегмента журнала, покрытая индексом
+    public long indexedLength(UUID ownerId, YearMonth segment) {
+        return indexedLength.getOrDefault(ownerId, Map.of()).getOrDefault(segment, 0L);
+    }
+
+    public Set<UUID> indexedOwners() {
+        return indexedLength.keySet();
+    }
+
+    public int size() {
+        return locations.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public synchronized void putAll(List<Location> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Location location : entries) {
+            apply(location);
+            line(sb, location.getTransactionId(), location.getOwnerId(), location.getSegment(),
+                    location.getOffset(), location.getLength());
+        }
+        append(sb.toString());
+    }
+
+    public synchronized void remove(UUID ownerId, UUID transactionId) {
+        Location removed = forget(ownerId, transactionId);
+        if (removed != null) {
+            unlink(removed);
+        }
+    }
+
+    // Сброс всех записей сегмента перед его перезаписью или полной переиндексацией
+    public synchronized void resetSegment(UUID ownerId, YearMonth segment) {
+        forgetSegment(ownerId, segment);
+        StringBuilder sb = new StringBuilder();
+        line(sb, null, ownerId, segment, RESET, 0);
+        append(sb.toString());
+    }
+
+    public synchronized void clear() {
+        locations.clear();
+        segmentIds.clear();
+        indexedLength.clear();
+    }
+
+    // Перезапись файла индекса по текущему состоянию
+    public synchronized void compact() {
+        StringBuilder sb = new StringBuilder();
+        locations.values().stream()
+                .flatMap(owners -> owners.values().stream())
+                .sorted(Comparator.comparing(Location::getOwnerId)
+                        .thenComparing(Location::getSegment)
+                        .thenComparingLong(Location::getOffset))
+                .forEach(location -> line(sb, location.getTransactionId(), location.getOwnerId(),
+                        location.getSegment(), location.getOffset(), location.getLength()));
+        // Строка без txId фиксирует покрытую длину сегмента, даже если в нем нет записей
+        indexedLength.forEach((owner, segments) -> segments.forEach((segment, length) ->
+                line(sb, null, owner, segment, length, 0)));
+        try {
+            AtomicFileWriter.write(indexFile, sb.toString().getBytes(StandardCharsets.UTF_8));
+            fileLines = size() + segmentCount();
+            obsoleteLines = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write transaction index", e);
+        }
+    }
+
+    public boolean needsCompaction() {
+        return obsoleteLines > 0 || fileLines > (size() + segmentCount()) * 2 + 1024;
+    }
+
+    private synchronized void load() {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                fileLines++;
+                if (parts.length == 4) {
+                    // запись индекса по единому файлу журнала (до разбиения на сегменты)
+                    obsoleteLines++;
+                    continue;
+                }
+                if (parts.length != 5) {
+                    // оборванная последняя строка - хвост будет доиндексирован по журналу
+                    logger.warn("Skipping damaged transaction index record");
+                    continue;
+                }
+                UUID owner = UUID.fromString(parts[1]);
+                YearMonth segment = YearMonth.parse(parts[2]);
+                long offset = Long.parseLong(parts[3]);
+                int length = Integer.parseInt(parts[4]);
+                if (parts[0].isEmpty() && offset == RESET) {
+                    forgetSegment(owner, segment);
+                } else if (parts[0].isEmpty()) {
+                    cover(owner, segment, offset);
+                } else {
+                    apply(new Location(UUID.fromString(parts[0]), owner, segment, offset, length));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Transaction index is corrupt ({}), it will be rebuilt from journals", e.getMessage());
+            clear();
+        }
+    }
+
+    private void forgetSegment(UUID ownerId, YearMonth segment) {
+        Map<YearMonth, Set<UUID>> ownerSegments = segmentIds.get(ownerId);
+        Set<UUID> ids = ownerSegments != null ? ownerSegments.remove(segment) : null;
+        if (ids != null) {
+            ids.forEach(id -> forget(ownerId, id));
+            if (ownerSegments.isEmpty()) {
+                segmentIds.remove(ownerId);
+            }
+        }
+        Map<YearMonth, Long> segments = indexedLength.get(ownerId);
+        if (segments != null) {
+            segments.remove(segment);
+        }
+    }
+
+    private void apply(Location location) {
+        Location previous = locations.computeIfAbsent(location.getTransactionId(), id -> new ConcurrentHashMap<>())
+                .put(location.getOwnerId(), location);
+        if (previous != null) {
+            unlink(previous);
+        }
+        segmentIds.computeIfAbsent(location.getOwnerId(), id -> new HashMap<>())
+                .computeIfAbsent(location.getSegment(), segment -> new HashSet<>())
+                .add(location.getTransactionId());
+        cover(location.getOwnerId(), location.getSegment(), location.getOffset() + location.getLength());
+    }
+
+    private Location forget(UUID ownerId, UUID transactionId) {
+        Map<UUID, Location> owners = locations.get(transactionId);
+        if (owners == null) {
+            return null;
+        }
+        Location removed = owners.remove(ownerId);
+        if (owners.isEmpty()) {
+            locations.remove(transactionId);
+        }
+        return removed;
+    }
+
+    private void unlink(Location location) {
+        Map<YearMonth, Set<UUID>> ownerSegments = segmentIds.get(location.getOwnerId());
+        if (ownerSegments == null) {
+            return;
+        }
+        Set<UUID> ids = ownerSegments.get(location.getSegment());
+        if (ids != null && ids.remove(location.getTransactionId()) && ids.isEmpty()) {
+            ownerSegments.remove(location.getSegment());
+            if (ownerSegments.isEmpty()) {
+                segmentIds.remove(location.getOwnerId());
+            }
+        }
+    }
+
+    private void cover(UUID ownerId, YearMonth segment, long length) {
+        indexedLength.computeIfAbsent(ownerId, id -> new ConcurrentHashMap<>()).merge(segment, length, Math::max);
+    }
+
+    private int segmentCount() {
+        return indexedLength.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private static void line(StringBuilder sb, UUID transactionId, UUID ownerId, YearMonth segment,
+                             long offset, int length) {
+        if (transactionId != null) {
+            sb.append(transactionId);
+        }
+        sb.append('\t').append(ownerId)
+                .append('\t').append(segment)
+                .append('\t').append(offset)
+                .append('\t').append(length).append('\n');
+    }
+
+    private void append(String records) {
+        try (FileChannel channel = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            fileLines += (int) records.chars().filter(c -> c == '\n').count();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not update transaction index", e);
+        }
+    }
+
+    @Data
+    public static class Location {
+        private final UUID transactionId;
+        private final UUID ownerId;
+        private final YearMonth segment;
+        private final long offset;
+        private final int length;
+    }
+}
@@ -0,0 +1,676 @@
+package dev.micartera.infrastructure.storage;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Журнал транзакций пользователя, разбитый на месячные сегменты по дате создания транзакции:
+// <ownerId>_transactions/<yyyy-MM>.jsonl, одна транзакция (JSON) на строку. В формате Smile
+// (app.storage.format) сегменты - <yyyy-MM>.smile, записи разделяются маркером 0xFF.
+// Запись только дописыванием в конец сегмента, изменение статуса - новая запись с тем же id
+// (дата создания не меняется, поэтому запись попадает в тот же сегмент).
+// Компактизация оставляет последнюю версию каждой транзакции.
+// Выборка за период читает только сегменты пересекающихся с ним месяцев.
+// Поиск по владельцу и id - через общий индекс TransactionIdIndex: одно позиционное чтение записи.
+// Сегменты от app.storage.journal.mmap-threshold-kb читаются через отображение файла в память.
+public class TransactionJournal {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionJournal.class);
+    private static final String JOURNAL_SUFFIX = "_transactions";
+    private static final String SINGLE_FILE_SUFFIX = "_transactions.jsonl";
+    private static final String LEGACY_SUFFIX = "_transactions.json";
+    private static final Comparator<Transaction> BY_CREATED =
+            Comparator.comparing(Transaction::getCreated).thenComparing(Transaction::getId);
+    private static final Map<Path, TransactionJournal> journals = new ConcurrentHashMap<>();
+    private final Path dir;
+    private final StorageCodec codec;
+    private final String segmentSuffix;
+    private final byte separator;
+    private final long mapThreshold;
+    private final FsyncPolicy fsyncPolicy;
+    private final TransactionIdIndex idIndex;
+    private final Map<UUID, Object> locks = new ConcurrentHashMap<>();
+    private final Set<UUID> prepared = ConcurrentHashMap.newKeySet();
+    private final Set<Path> unsynced = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Set<YearMonth>> touched = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance;
+
+    // Один экземпляр на каталог: журналы и индекс должны обслуживаться из одного места,
+    // иначе запись одного экземпляра может потеряться при уплотнении сегмента другим
+    public static TransactionJournal forDirectory(Path dir) {
+        return journals.computeIfAbsent(dir.toAbsolutePath().normalize(), TransactionJournal::new);
+    }
+
+    private TransactionJournal(Path dir) {
+        this(dir, StorageFormat.configured(),
+                FsyncPolicy.fromProperty(ApplicationConfig.getProperty("app.storage.journal.fsync")),
+                ApplicationConfig.getIntProperty("app.storage.journal.fsync-interval-ms", 1000),
+                ApplicationConfig.getIntProperty("app.storage.journal.compaction-interval-minutes", 60),
+                ApplicationConfig.getIntProperty("app.storage.journal.mmap-threshold-kb", 256) * 1024L);
+    }
+
+    private TransactionJournal(Path dir, StorageFormat format, FsyncPolicy fsyncPolicy,
+                               int fsyncIntervalMs, int compactionIntervalMinutes, long mapThreshold) {
+        this.dir = dir;
+        this.codec = StorageCodec.forFormat(format);
+        this.segmentSuffix = format.getJournalExtension();
+        this.separator = format.getRecordSeparator();
+        this.mapThreshold = mapThreshold;
+        this.fsyncPolicy = fsyncPolicy;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal directory: " + dir, e);
+        }
+        this.idIndex = TransactionIdIndex.open(dir);
+        synchronizeIndex();
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transaction-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            maintenance.scheduleWithFixedDelay(this::sync, fsyncIntervalMs, fsyncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (compactionIntervalMinutes > 0) {
+            maintenance.scheduleWithFixedDelay(this::compactTouched,
+                    compactionIntervalMinutes, compactionIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    public void append(UUID ownerId, Transaction transaction) {
+        appendAll(ownerId, List.of(transaction));
+    }
+
+    // Записи раскладываются по месяцам создания, в каждый сегмент - одной операцией записи
+    public void appendAll(UUID ownerId, List<Transaction> transactions) {
+        Map<YearMonth, List<Transaction>> bySegment = groupBySegment(transactions);
+        synchronized (lockFor(ownerId)) {
+            prepare(ownerId);
+            bySegment.forEach((segment, records) -> appendToSegment(ownerId, segment, records));
+        }
+    }
+
+    // Последняя версия транзакции по id в журнале любого из ее владельцев
+    public Optional<Transaction> find(UUID transactionId) {
+        return idIndex.find(transactionId).flatMap(location -> find(location.getOwnerId(), transactionId));
+    }
+
+    // Последняя версия транзакции в журнале владельца: поиск в индексе и чтение одной записи
+    public Optional<Transaction> find(UUID ownerId, UUID transactionId) {
+        Optional<TransactionIdIndex.Location> location = idIndex.find(ownerId, transactionId);
+        if (location.isEmpty()) {
+            return Optional.empty();
+        }
+        YearMonth segment = location.get().getSegment();
+        synchronized (lockFor(ownerId)) {
+            // под блокировкой владельца компактизация не сдвинет запись
+            Optional<Transaction> found = readIndexed(ownerId, transactionId);
+            if (found.isEmpty()) {
+                logger.warn("Stale transaction index entry: {} in journal {}/{}", transactionId, ownerId, segment);
+                reindex(ownerId, segment, 0);
+                found = readIndexed(ownerId, transactionId);
+            }
+            return found;
+        }
+    }
+
+    // Потоковое чтение всех сегментов по порядку месяцев. Поток нужно закрыть.
+    public Stream<Transaction> stream(UUID ownerId) {
+        return segments(ownerId).stream().flatMap(segment -> streamSegment(ownerId, segment));
+    }
+
+    // Актуальные версии транзакций, созданных в [from, to], по возрастанию даты создания.
+    // Читаются только сегменты месяцев, пересекающихся с периодом, и по одному за раз.
+    public Stream<Transaction> streamRange(UUID ownerId, LocalDateTime from, LocalDateTime to) {
+        return streamRange(ownerId, from, to, false);
+    }
+
+    // То же, при newestFirst - от новых к старым. Поток ленивый: при ограничении числа записей
+    // (limit) следующие сегменты не читаются, в памяти не больше одного месяца.
+    public Stream<Transaction> streamRange(UUID ownerId, LocalDateTime from, LocalDateTime to, boolean newestFirst) {
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        List<YearMonth> segments = new ArrayList<>(segments(ownerId));
+        if (newestFirst) {
+            Collections.reverse(segments);
+        }
+        Comparator<Transaction> order = newestFirst ? BY_CREATED.reversed() : BY_CREATED;
+        return segments.stream()
+                .filter(segment -> !segment.isBefore(first) && !segment.isAfter(last))
+                .flatMap(segment -> readSegmentLatest(ownerId, segment).stream()
+                        .filter(t -> !t.getCreated().isBefore(from) && !t.getCreated().isAfter(to))
+                        .sorted(order));
+    }
+
+    // Актуальные версии транзакций (последняя запись по каждому id) по порядку сегментов
+    public List<Transaction> readLatest(UUID ownerId) {
+        List<Transaction> latest = new ArrayList<>();
+        for (YearMonth segment : segments(ownerId)) {
+            latest.addAll(readSegmentLatest(ownerId, segment));
+        }
+        return latest;
+    }
+
+    public Set<UUID> owners() {
+        return owners(dir);
+    }
+
+    // Владельцы журналов каталога (в любом формате) без открытия экземпляра
+    public static Set<UUID> owners(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(f -> f.getFileName().toString())
+                    .filter(name -> name.endsWith(JOURNAL_SUFFIX)
+                            || name.endsWith(SINGLE_FILE_SUFFIX) || name.endsWith(LEGACY_SUFFIX))
+                    .map(name -> UUID.fromString(name.substring(0, name.indexOf('_'))))
+                    .collect(Collectors.toSet());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list transaction journals", e);
+        }
+    }
+
+    // Журнал владельца в каталоге без изменений на диске - для переноса в другое хранилище:
+    // старые форматы читаются на месте, затем сегменты по одному (последняя версия каждой записи
+    // внутри файла). Оборванный конец и поврежденные записи пропускаются, индекс не трогается.
+    // Запись из старого файла, уже перенесенная в сегмент, встречается дважды - позже идет сегмент.
+    public static Stream<Transaction> readSnapshot(Path dir, UUID ownerId, StorageFormat format) {
+        StorageCodec codec = StorageCodec.forFormat(format);
+        List<Transaction> legacy = new ArrayList<>();
+        List<Path> segments;
+        try {
+            Path legacyFile = dir.resolve(ownerId + LEGACY_SUFFIX);
+            if (Files.exists(legacyFile)) {
+                legacy.addAll(Arrays.asList(JsonUtils.read(legacyFile, Transaction[].class)));
+            }
+            Path singleFile = dir.resolve(ownerId + SINGLE_FILE_SUFFIX);
+            if (Files.exists(singleFile)) {
+                try (Stream<String> lines = Files.lines(singleFile, StandardCharsets.UTF_8)) {
+                    lines.filter(line -> !line.isBlank())
+                            .map(line -> decodeJson(ownerId, line))
+                            .filter(Objects::nonNull)
+                            .forEach(legacy::add);
+                }
+            }
+            Path ownerDir = dir.resolve(ownerId + JOURNAL_SUFFIX);
+            segments = new ArrayList<>();
+            if (Files.isDirectory(ownerDir)) {
+                try (Stream<Path> files = Files.list(ownerDir)) {
+                    files.filter(f -> f.getFileName().toString().endsWith(format.getJournalExtension()))
+                            .sorted()
+                            .forEach(segments::add);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read transaction journal: " + ownerId, e);
+        }
+        return Stream.concat(collapse(legacy.stream()).values().stream(),
+                segments.stream().flatMap(file -> {
+                    try (Stream<ByteBuffer> records = RecordReader.records(file, 0, format.getRecordSeparator())) {
+                        return collapse(records.map(record -> decode(codec, ownerId, record))
+                                .filter(Objects::nonNull)).values().stream();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not read transaction journal: " + ownerId, e);
+                    }
+                }));
+    }
+
+    // Месяцы, за которые у владельца есть сегменты, по возрастанию
+    public List<YearMonth> segments(UUID ownerId) {
+        synchronized (lockFor(ownerId)) {
+            prepare(ownerId);
+            try {
+                return segmentFiles(ownerId).keySet().stream().toList();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list transaction journal: " + ownerId, e);
+            }
+        }
+    }
+
+    // Перезаписывает сегменты, оставляя только последние версии записей
+    public void compact(UUID ownerId) {
+        for (YearMonth segment : segments(ownerId)) {
+            compact(ownerId, segment);
+        }
+    }
+
+    public void compact(UUID ownerId, YearMonth segment) {
+        synchronized (lockFor(ownerId)) {
+            prepare(ownerId);
+            List<Transaction> all;
+            try (Stream<Transaction> records = streamSegment(ownerId, segment)) {
+                all = records.toList();
+            }
+            Map<UUID, Transaction> latest = collapse(all.stream());
+            if (all.size() == latest.size()) {
+                return;
+            }
+            writeSegment(ownerId, segment, latest.values());
+            logger.info("Transaction journal compacted: {}/{} ({} -> {} records)",
+                    ownerId, segment, all.size(), latest.size());
+        }
+    }
+
+    // Полная замена содержимого журнала (импорт, перенос старых данных)
+    public void rewrite(UUID ownerId, Collection<Transaction> transactions) {
+        synchronized (lockFor(ownerId)) {
+            prepare(ownerId);
+            writeJournal(ownerId, transactions);
+        }
+    }
+
+    // Сброс на диск всех сегментов, дописанных с момента прошлого вызова
+    public void sync() {
+        for (Path file : List.copyOf(unsynced)) {
+            unsynced.remove(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            } catch (NoSuchFileException e) {
+                // сегмент успели перезаписать целиком - он уже на диске
+            } catch (IOException e) {
+                logger.error("Could not sync transaction journal: {}", file, e);
+            }
+        }
+    }
+
+    // Следующий forDirectory для этого каталога создаст новый экземпляр
+    public void close() {
+        journals.remove(dir, this);
+        maintenance.shutdown();
+        sync();
+    }
+
+    // Закрытие экземпляра каталога, если он был открыт
+    public static void closeDirectory(Path dir) {
+        TransactionJournal journal = journals.get(dir.toAbsolutePath().normalize());
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void appendToSegment(UUID ownerId, YearMonth segment, List<Transaction> transactions) {
+        List<byte[]> records = encode(transactions);
+        Path file = segmentFile(ownerId, segment);
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.wrap(concat(records));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                    channel.force(false);
+                } else if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                    unsynced.add(file);
+                }
+                touched.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet()).add(segment);
+                idIndex.putAll(locations(ownerId, segment, transactions, records, offset));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to transaction journal: " + ownerId, e);
+        }
+    }
+
+    private void compactTouched() {
+        for (UUID ownerId : List.copyOf(touched.keySet())) {
+            Set<YearMonth> segments = touched.remove(ownerId);
+            for (YearMonth segment : segments) {
+                try {
+                    compact(ownerId, segment);
+                } catch (RuntimeException e) {
+                    logger.error("Could not compact transaction journal: {}/{}", ownerId, segment, e);
+                }
+            }
+        }
+        if (idIndex.needsCompaction()) {
+            idIndex.compact();
+        }
+    }
+
+    // При старте: доиндексировать сегменты, дописанные после последнего обновления индекса
+    // (сбой, индекс удален или поврежден). Сегменты, совпадающие по длине, не читаются.
+    private void synchronizeIndex() {
+        int reindexed = 0;
+        for (UUID ownerId : owners()) {
+            synchronized (lockFor(ownerId)) {
+                try {
+                    prepare(ownerId);
+                    for (Map.Entry<YearMonth, Path> entry : segmentFiles(ownerId).entrySet()) {
+                        long size = Files.size(entry.getValue());
+                        long indexed = idIndex.indexedLength(ownerId, entry.getKey());
+                        if (size != indexed) {
+                            reindex(ownerId, entry.getKey(), size > indexed ? indexed : 0);
+                            reindexed++;
+                        }
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    logger.error("Could not index transaction journal: {}", ownerId, e);
+                }
+            }
+        }
+        if (reindexed > 0) {
+            logger.info("Transaction index updated for {} segments, {} transactions indexed", reindexed, idIndex.size());
+        }
+        if (idIndex.needsCompaction()) {
+            idIndex.compact();
+        }
+    }
+
+    // Индексация сегмента начиная с from (0 - полностью)
+    private void reindex(UUID ownerId, YearMonth segment, long from) {
+        if (from == 0) {
+            idIndex.resetSegment(ownerId, segment);
+        }
+        Path file = segmentFile(ownerId, segment);
+        if (!Files.exists(file)) {
+            return;
+        }
+        List<TransactionIdIndex.Location> entries = new ArrayList<>();
+        try (Stream<ByteBuffer> records = records(file, from)) {
+            long offset = from;
+            for (ByteBuffer record : (Iterable<ByteBuffer>) records::iterator) {
+                int length = record.remaining();
+                Transaction transaction = decode(ownerId, record);
+                if (transaction != null) {
+                    entries.add(new TransactionIdIndex.Location(
+                            transaction.getId(), ownerId, segment, offset, length));
+                }
+                offset += length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not index transaction journal: " + ownerId, e);
+        }
+        idIndex.putAll(entries);
+    }
+
+    private Optional<Transaction> readIndexed(UUID ownerId, UUID transactionId) {
+        return idIndex.find(ownerId, transactionId)
+                .map(this::readAt)
+                .filter(t -> t.getId().equals(transactionId));
+    }
+
+    private Transaction readAt(TransactionIdIndex.Location location) {
+        Path file = segmentFile(location.getOwnerId(), location.getSegment());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(location.getLength());
+            while (buffer.hasRemaining() && channel.read(buffer, location.getOffset() + buffer.position()) > 0) {
+                // дочитываем запись целиком
+            }
+            return decode(location.getOwnerId(), buffer.flip());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.error("Could not read transaction journal: {}", file, e);
+            return null;
+        }
+    }
+
+    private Stream<Transaction> streamSegment(UUID ownerId, YearMonth segment) {
+        Path file = segmentFile(ownerId, segment);
+        if (!Files.exists(file)) {
+            return Stream.empty();
+        }
+        try {
+            return records(file, 0)
+                    .map(record -> decode(ownerId, record))
+                    .filter(Objects::nonNull);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read transaction journal: " + ownerId, e);
+        }
+    }
+
+    // Сегмент разбирается одним потоковым парсером без построчного копирования;
+    // если в нем есть поврежденная запись - повторное чтение по строкам с ее пропуском
+    private List<Transaction> readSegmentLatest(UUID ownerId, YearMonth segment) {
+        Path file = segmentFile(ownerId, segment);
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        if (codec.getFormat() != StorageFormat.JSON) {
+            try (Stream<Transaction> records = streamSegment(ownerId, segment)) {
+                return new ArrayList<>(collapse(records).values());
+            }
+        }
+        Map<UUID, Transaction> latest = new LinkedHashMap<>();
+        try (InputStream in = open(file);
+             MappingIterator<Transaction> records = codec.readValues(in, Transaction.class)) {
+            while (records.hasNextValue()) {
+                Transaction transaction = records.nextValue();
+                latest.put(transaction.getId(), transaction);
+            }
+            return new ArrayList<>(latest.values());
+        } catch (NoSuchFileException e) {
+            return new ArrayList<>();
+        } catch (IOException | RuntimeException e) {
+            try (Stream<Transaction> records = streamSegment(ownerId, segment)) {
+                return new ArrayList<>(collapse(records).values());
+            }
+        }
+    }
+
+    // Однократно для каждого владельца: перенос старых форматов (JSON-массив, единый файл журнала)
+    // в месячные сегменты и восстановление конца сегментов после оборванной записи
+    private void prepare(UUID ownerId) {
+        if (prepared.contains(ownerId)) {
+            return;
+        }
+        Path legacy = dir.resolve(ownerId + LEGACY_SUFFIX);
+        Path singleFile = dir.resolve(ownerId + SINGLE_FILE_SUFFIX);
+        try {
+            for (Path file : segmentFiles(ownerId).values()) {
+                repairTail(file);
+            }
+            if (Files.exists(legacy) || Files.exists(singleFile)) {
+                migrate(ownerId, legacy, singleFile);
+            }
+            prepared.add(ownerId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open transaction journal: " + ownerId, e);
+        }
+    }
+
+    // Старые файлы удаляются только после записи сегментов; если перенос прервался,
+    // при следующем запуске он повторяется поверх уже записанных сегментов
+    private void migrate(UUID ownerId, Path legacy, Path singleFile) throws IOException {
+        List<Transaction> records = new ArrayList<>();
+        if (Files.exists(legacy)) {
+            records.addAll(Arrays.asList(JsonUtils.read(legacy, Transaction[].class)));
+        }
+        if (Files.exists(singleFile)) {
+            try (Stream<String> lines = Files.lines(singleFile, StandardCharsets.UTF_8)) {
+                lines.filter(line -> !line.isBlank())
+                        .map(line -> decodeJson(ownerId, line))
+                        .filter(Objects::nonNull)
+                        .forEach(records::add);
+            }
+        }
+        for (YearMonth segment : segmentFiles(ownerId).keySet()) {
+            try (Stream<Transaction> stream = streamSegment(ownerId, segment)) {
+                stream.forEach(records::add);
+            }
+        }
+        Map<UUID, Transaction> latest = collapse(records.stream());
+        writeJournal(ownerId, latest.values());
+        Files.deleteIfExists(legacy);
+        Files.deleteIfExists(singleFile);
+        logger.info("Transactions migrated to monthly segments: {} ({} records)", ownerId, latest.size());
+    }
+
+    private void repairTail(Path file) throws IOException {
+        if (Files.size(file) == 0) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            if (last.get(0) != separator) {
+                logger.warn("Transaction journal has a torn last record: {}", file);
+                channel.write(ByteBuffer.wrap(new byte[]{separator}), channel.size());
+            }
+        }
+    }
+
+    // Раскладывает транзакции по сегментам, сегменты без записей удаляет
+    private void writeJournal(UUID ownerId, Collection<Transaction> transactions) {
+        Map<YearMonth, List<Transaction>> bySegment = groupBySegment(transactions);
+        try {
+            for (Map.Entry<YearMonth, Path> entry : segmentFiles(ownerId).entrySet()) {
+                if (!bySegment.containsKey(entry.getKey())) {
+                    Files.delete(entry.getValue());
+                    idIndex.resetSegment(ownerId, entry.getKey());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write transaction journal: " + ownerId, e);
+        }
+        bySegment.forEach((segment, records) -> writeSegment(ownerId, segment, records));
+    }
+
+    private void writeSegment(UUID ownerId, YearMonth segment, Collection<Transaction> transactions) {
+        List<byte[]> records = encode(transactions);
+        try {
+            AtomicFileWriter.write(segmentFile(ownerId, segment), out -> {
+                for (byte[] record : records) {
+                    out.write(record);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write transaction journal: " + ownerId, e);
+        }
+        idIndex.resetSegment(ownerId, segment);
+        idIndex.putAll(locations(ownerId, segment, List.copyOf(transactions), records, 0));
+    }
+
+    private SortedMap<YearMonth, Path> segmentFiles(UUID ownerId) throws IOException {
+        SortedMap<YearMonth, Path> segments = new TreeMap<>();
+        Path ownerDir = dir.resolve(ownerId + JOURNAL_SUFFIX);
+        if (!Files.isDirectory(ownerDir)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(ownerDir)) {
+            files.filter(f -> f.getFileName().toString().endsWith(segmentSuffix))
+                    .forEach(f -> {
+                        String name = f.getFileName().toString();
+                        segments.put(YearMonth.parse(name.substring(0, name.length() - segmentSuffix.length())), f);
+                    });
+        }
+        return segments;
+    }
+
+    private static Map<YearMonth, List<Transaction>> groupBySegment(Collection<Transaction> transactions) {
+        return transactions.stream()
+                .collect(Collectors.groupingBy(TransactionJournal::segmentOf, TreeMap::new, Collectors.toList()));
+    }
+
+    // Транзакция без даты создания (не должно встречаться) попадает в текущий месяц
+    private static YearMonth segmentOf(Transaction transaction) {
+        return transaction.getCreated() != null ? YearMonth.from(transaction.getCreated()) : YearMonth.now();
+    }
+
+    // Каждая транзакция - отдельная запись с завершающим разделителем ('\n' для JSON)
+    private List<byte[]> encode(Collection<Transaction> transactions) {
+        List<byte[]> records = new ArrayList<>(transactions.size());
+        try {
+            for (Transaction transaction : transactions) {
+                byte[] encoded = codec.toBytes(transaction);
+                byte[] record = Arrays.copyOf(encoded, encoded.length + 1);
+                record[encoded.length] = separator;
+                records.add(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize transactions", e);
+        }
+        return records;
+    }
+
+    private static byte[] concat(List<byte[]> records) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        records.forEach(out::writeBytes);
+        return out.toByteArray();
+    }
+
+    private static List<TransactionIdIndex.Location> locations(UUID ownerId, YearMonth segment,
+                                                               List<Transaction> transactions,
+                                                               List<byte[]> records, long offset) {
+        List<TransactionIdIndex.Location> locations = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            locations.add(new TransactionIdIndex.Location(transactions.get(i).getId(), ownerId, segment,
+                    offset, records.get(i).length));
+            offset += records.get(i).length;
+        }
+        return locations;
+    }
+
+    private static Map<UUID, Transaction> collapse(Stream<Transaction> records) {
+        Map<UUID, Transaction> latest = new LinkedHashMap<>();
+        records.forEach(t -> latest.put(t.getId(), t));
+        return latest;
+    }
+
+    // Строка журнала старого формата (единый файл .jsonl)
+    private static Transaction decodeJson(UUID ownerId, String line) {
+        try {
+            return JsonUtils.fromJson(line, Transaction.class);
+        } catch (IOException e) {
+            logger.warn("Skipping damaged record in transaction journal: {}", ownerId);
+            return null;
+        }
+    }
+
+    private Transaction decode(UUID ownerId, ByteBuffer record) {
+        return decode(codec, ownerId, record);
+    }
+
+    private static Transaction decode(StorageCodec codec, UUID ownerId, ByteBuffer record) {
+        try {
+            return codec.read(record, Transaction.class);
+        } catch (IOException e) {
+            logger.warn("Skipping damaged record in transaction journal: {}", ownerId);
+            return null;
+        }
+    }
+
+    private Stream<ByteBuffer> records(Path file, long from) throws IOException {
+        return shouldMap(file, from)
+                ? RecordReader.mapped(file, from, separator)
+                : RecordReader.records(file, from, separator);
+    }
+
+    private InputStream open(Path file) throws IOException {
+        return shouldMap(file, 0)
+                ? new ByteBufferBackedInputStream(RecordReader.map(file, 0))
+                : new BufferedInputStream(Files.newInputStream(file));
+    }
+
+    // Небольшие сегменты дешевле прочитать в буфер, чем отображать
+    private boolean shouldMap(Path file, long from) throws IOException {
+        return mapThreshold > 0 && Files.size(file) - from >= mapThreshold;
+    }
+
+    private Path segmentFile(UUID ownerId, YearMonth segment) {
+        return dir.resolve(ownerId + JOURNAL_SUFFIX).resolve(segment + segmentSuffix);
+    }
+
+    private Object lockFor(UUID ownerId) {
+        return locks.computeIfAbsent(ownerId, id -> new Object());
+    }
+}
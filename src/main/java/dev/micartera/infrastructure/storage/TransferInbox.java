@@ -0,0 +1,587 @@
+package dev.micartera.infrastructure.storage;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.security.TransferSealer;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Очереди переводов пользователя: transfers/<userId>/in.jsonl (входящие) и out.jsonl (исходящие),
+// в формате Smile - in.smile / out.smile. Файл очереди только дописывается: запись перевода или
+// "надгробие" (id без перевода), когда перевод обработан. Для открытой очереди в памяти хранится
+// индекс id -> (смещение, длина) живых записей в порядке поступления: число ожидающих переводов -
+// размер индекса, страница и поиск по id - позиционное чтение нужных записей.
+// Когда надгробий накапливается больше живых записей (и не меньше порога
+// app.storage.transfers.compaction-threshold), очередь переписывается без них в фоновом потоке.
+// Переводы старого формата (файл на перевод в каталоге in/ или out/) переносятся в очередь
+// при первом открытии.
+// Переводы, записанные до запечатывания (TransferSealer), запечатываются один раз при первом
+// открытии каталога; после этого появляется файл-отметка .sealed, и записи без печати больше
+// не запечатываются - проверка их отклоняет.
+public class TransferInbox {
+    private static final Logger logger = LoggerFactory.getLogger(TransferInbox.class);
+    private static final Map<Path, TransferInbox> inboxes = new ConcurrentHashMap<>();
+    private static final String SEALED_MARKER = ".sealed";
+    private final Path dir;
+    private final StorageFormat format;
+    private final StorageCodec codec;
+    private final byte separator;
+    private final FsyncPolicy fsyncPolicy;
+    private final int compactionThreshold;
+    private final Map<Path, Queue> queues = new ConcurrentHashMap<>();
+    private final Set<Path> unsynced = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService maintenance;
+    private boolean sealingLegacy;
+
+    // Один экземпляр на каталог: очередь должна обслуживаться из одного места
+    public static TransferInbox forDirectory(Path dir) {
+        return inboxes.computeIfAbsent(dir.toAbsolutePath().normalize(), TransferInbox::create);
+    }
+
+    public static TransferInbox create(Path dir) {
+        return create(dir, StorageFormat.configured(),
+                FsyncPolicy.fromProperty(ApplicationConfig.getProperty("app.storage.journal.fsync")),
+                ApplicationConfig.getIntProperty("app.storage.journal.fsync-interval-ms", 1000),
+                ApplicationConfig.getIntProperty("app.storage.transfers.compaction-threshold", 64));
+    }
+
+    // Фоновая синхронизация и запечатывание старых записей запускаются после создания экземпляра
+    public static TransferInbox create(Path dir, StorageFormat format, FsyncPolicy fsyncPolicy, int fsyncIntervalMs,
+                                       int compactionThreshold) {
+        TransferInbox inbox = new TransferInbox(dir, format, fsyncPolicy, compactionThreshold);
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            inbox.maintenance.scheduleWithFixedDelay(inbox::sync, fsyncIntervalMs, fsyncIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        inbox.sealLegacy();
+        return inbox;
+    }
+
+    private TransferInbox(Path dir, StorageFormat format, FsyncPolicy fsyncPolicy, int compactionThreshold) {
+        this.dir = dir;
+        this.format = format;
+        this.codec = StorageCodec.forFormat(format);
+        this.separator = format.getRecordSeparator();
+        this.fsyncPolicy = fsyncPolicy;
+        this.compactionThreshold = Math.max(1, compactionThreshold);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transfer-inbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Повторная запись перевода с тем же id заменяет прежнюю, место в очереди сохраняется
+    public void append(UUID userId, boolean incoming, TransferFile transfer) {
+        Queue queue = queue(userId, incoming);
+        synchronized (queue) {
+            long[] location = write(queue, new Entry(transfer.getTransactionId(), transfer));
+            if (queue.index.put(transfer.getTransactionId(), location) != null) {
+                queue.dead++;
+            }
+        }
+    }
+
+    // Пачка переводов в одну очередь - одной записью в файл
+    public void appendAll(UUID userId, boolean incoming, List<TransferFile> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        Queue queue = queue(userId, incoming);
+        synchronized (queue) {
+            List<long[]> locations = writeAll(queue, transfers.stream()
+                    .map(transfer -> new Entry(transfer.getTransactionId(), transfer))
+                    .toList());
+            for (int i = 0; i < transfers.size(); i++) {
+                if (queue.index.put(transfers.get(i).getTransactionId(), locations.get(i)) != null) {
+                    queue.dead++;
+                }
+            }
+        }
+    }
+
+    // false - перевода в очереди нет
+    public boolean remove(UUID userId, boolean incoming, UUID transactionId) {
+        Queue queue = queue(userId, incoming);
+        synchronized (queue) {
+            if (!queue.index.containsKey(transactionId)) {
+                return false;
+            }
+            write(queue, new Entry(transactionId, null));
+            queue.index.remove(transactionId);
+            queue.dead += 2; // сама запись и надгробие
+            scheduleCompaction(queue);
+            return true;
+        }
+    }
+
+    public Optional<TransferFile> find(UUID userId, boolean incoming, UUID transactionId) {
+        Queue queue = queue(userId, incoming);
+        synchronized (queue) {
+            long[] location = queue.index.get(transactionId);
+            if (location == null) {
+                return Optional.empty();
+            }
+            try (FileChannel channel = FileChannel.open(queue.file, StandardOpenOption.READ)) {
+                return Optional.ofNullable(read(channel, location));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read transfer queue: " + queue.file, e);
+            }
+        }
+    }
+
+    public int count(UUID userId, boolean incoming) {
+        Queue queue = queue(userId, incoming);
+        synchronized (queue) {
+            return queue.index.size();
+        }
+    }
+
+    // Страница ожидающих переводов в порядке поступления
+    public List<TransferFile> peek(UUID userId, boolean incoming, int offset, int limit) {
+        Queue queue = queue(userId, incoming);
+        List<TransferFile> page = new ArrayList<>();
+        synchronized (queue) {
+            if (offset >= queue.index.size() || limit <= 0) {
+                return page;
+            }
+            try (FileChannel channel = FileChannel.open(queue.file, StandardOpenOption.READ)) {
+                Iterator<long[]> locations = queue.index.values().iterator();
+                for (int i = 0; i < offset; i++) {
+                    locations.next();
+                }
+                while (locations.hasNext() && page.size() < limit) {
+                    TransferFile transfer = read(channel, locations.next());
+                    if (transfer != null) {
+                        page.add(transfer);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read transfer queue: " + queue.file, e);
+            }
+        }
+        return page;
+    }
+
+    public List<TransferFile> all(UUID userId, boolean incoming) {
+        return peek(userId, incoming, 0, Integer.MAX_VALUE);
+    }
+
+    // Пользователи, у которых на диске есть очереди переводов
+    public List<UUID> owners() {
+        return owners(dir);
+    }
+
+    // Владельцы очередей каталога без открытия экземпляра
+    public static List<UUID> owners(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        List<UUID> owners = new ArrayList<>();
+        try (Stream<Path> userDirs = Files.list(dir)) {
+            for (Path userDir : (Iterable<Path>) userDirs::iterator) {
+                if (!Files.isDirectory(userDir)) {
+                    continue;
+                }
+                try {
+                    owners.add(UUID.fromString(userDir.getFileName().toString()));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping unexpected entry in transfer queues: {}", userDir);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list transfer queues: " + dir, e);
+        }
+        return owners;
+    }
+
+    // Живые переводы очереди без изменений на диске - для переноса в другое хранилище: файлы
+    // старого формата читаются на месте, оборванный конец пропускается. Если каталог еще не
+    // запечатан, записи без печати запечатываются только в памяти - как это сделал бы первый запуск.
+    public static List<TransferFile> readSnapshot(Path dir, UUID userId, boolean incoming, StorageFormat format) {
+        StorageCodec codec = StorageCodec.forFormat(format);
+        Path file = dir.resolve(userId.toString()).resolve((incoming ? "in" : "out") + format.getJournalExtension());
+        Path legacy = dir.resolve(userId.toString()).resolve(incoming ? "in" : "out");
+        Map<UUID, TransferFile> live = new LinkedHashMap<>();
+        try {
+            if (Files.exists(file)) {
+                try (Stream<ByteBuffer> records = RecordReader.records(file, 0, format.getRecordSeparator())) {
+                    for (ByteBuffer record : (Iterable<ByteBuffer>) records::iterator) {
+                        try {
+                            Entry entry = codec.read(record, Entry.class);
+                            if (entry.getTransfer() == null) {
+                                live.remove(entry.getId());
+                            } else {
+                                live.put(entry.getId(), entry.getTransfer());
+                            }
+                        } catch (IOException e) {
+                            logger.warn("Skipping damaged record in transfer queue: {}", file);
+                        }
+                    }
+                }
+            }
+            if (Files.isDirectory(legacy)) {
+                List<TransferFile> transfers = new ArrayList<>();
+                try (Stream<Path> list = Files.list(legacy)) {
+                    for (Path transferFile : list.filter(f -> f.getFileName().toString()
+                            .endsWith(format.getExtension())).sorted().toList()) {
+                        try {
+                            transfers.add(codec.read(transferFile, TransferFile.class));
+                        } catch (IOException e) {
+                            logger.error("Error reading transfer file: {}", transferFile.getFileName(), e);
+                        }
+                    }
+                }
+                transfers.sort(Comparator.comparing(TransferFile::getCreated,
+                        Comparator.nullsFirst(Comparator.naturalOrder())));
+                transfers.forEach(transfer -> live.put(transfer.getTransactionId(), transfer));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read transfer queue: " + file, e);
+        }
+        List<TransferFile> transfers = new ArrayList<>(live.values());
+        if (!Files.exists(dir.resolve(SEALED_MARKER))) {
+            TransferSealer sealer = TransferSealer.configured();
+            transfers.replaceAll(transfer -> transfer.getEncryptedData() == null ? sealer.seal(transfer) : transfer);
+        }
+        return transfers;
+    }
+
+    // Перезапись очереди только с живыми записями; индекс строится заново по новым смещениям
+    public void compact(UUID userId, boolean incoming) {
+        compact(queue(userId, incoming));
+    }
+
+    // Сброс на диск очередей, дописанных с момента прошлого вызова
+    public void sync() {
+        for (Path file : List.copyOf(unsynced)) {
+            unsynced.remove(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            } catch (NoSuchFileException e) {
+                // очередь успели переписать целиком - она уже на диске
+            } catch (IOException e) {
+                logger.error("Could not sync transfer queue: {}", file, e);
+            }
+        }
+    }
+
+    // Следующий forDirectory для этого каталога создаст новый экземпляр
+    public void close() {
+        inboxes.remove(dir, this);
+        maintenance.shutdown();
+        sync();
+    }
+
+    // Закрытие экземпляра каталога, если он был открыт через forDirectory
+    public static void closeDirectory(Path dir) {
+        TransferInbox inbox = inboxes.get(dir.toAbsolutePath().normalize());
+        if (inbox != null) {
+            inbox.close();
+        }
+    }
+
+    // Все очереди каталога открываются (каталоги старого формата при этом переносятся и запечатываются),
+    // записи без encryptedData запечатываются и дописываются на свое место в очереди
+    private void sealLegacy() {
+        Path marker = dir.resolve(SEALED_MARKER);
+        if (Files.exists(marker)) {
+            return;
+        }
+        sealingLegacy = true;
+        try {
+            int sealed = 0;
+            for (UUID owner : owners()) {
+                sealed += sealQueue(queue(owner, true)) + sealQueue(queue(owner, false));
+            }
+            Files.createDirectories(dir);
+            AtomicFileWriter.write(marker, new byte[0]);
+            if (sealed > 0) {
+                logger.info("Transfers sealed in {}: {}", dir, sealed);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not seal transfer queues: " + dir, e);
+        } finally {
+            sealingLegacy = false;
+        }
+    }
+
+    private int sealQueue(Queue queue) throws IOException {
+        synchronized (queue) {
+            if (queue.index.isEmpty()) {
+                return 0;
+            }
+            List<TransferFile> unsealed = new ArrayList<>();
+            try (FileChannel channel = FileChannel.open(queue.file, StandardOpenOption.READ)) {
+                for (long[] location : queue.index.values()) {
+                    TransferFile transfer = read(channel, location);
+                    if (transfer != null && transfer.getEncryptedData() == null) {
+                        unsealed.add(transfer);
+                    }
+                }
+            }
+            if (unsealed.isEmpty()) {
+                return 0;
+            }
+            TransferSealer sealer = TransferSealer.configured();
+            unsealed.replaceAll(sealer::seal);
+            List<long[]> locations = writeAll(queue, unsealed.stream()
+                    .map(transfer -> new Entry(transfer.getTransactionId(), transfer))
+                    .toList());
+            for (int i = 0; i < unsealed.size(); i++) {
+                queue.index.put(unsealed.get(i).getTransactionId(), locations.get(i));
+                queue.dead++;
+            }
+            return unsealed.size();
+        }
+    }
+
+    private long[] write(Queue queue, Entry entry) {
+        return writeAll(queue, List.of(entry)).get(0);
+    }
+
+    // Пачка записей - одной операцией записи; возвращаются положения записей в файле
+    private List<long[]> writeAll(Queue queue, List<Entry> entries) {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        List<long[]> locations = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            byte[] record = encode(entry);
+            locations.add(new long[]{records.size(), record.length});
+            records.writeBytes(record);
+        }
+        try {
+            Files.createDirectories(queue.file.getParent());
+            try (FileChannel channel = FileChannel.open(queue.file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                    channel.force(false);
+                } else if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+                    unsynced.add(queue.file);
+                }
+                locations.forEach(location -> location[0] += offset);
+                return locations;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to transfer queue: " + queue.file, e);
+        }
+    }
+
+    private TransferFile read(FileChannel channel, long[] location) throws IOException {
+        return codec.read(readRecord(channel, location), Entry.class).getTransfer();
+    }
+
+    private static ByteBuffer readRecord(FileChannel channel, long[] location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) location[1]);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, location[0] + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of transfer queue");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private byte[] encode(Entry entry) {
+        try {
+            byte[] encoded = codec.toBytes(entry);
+            byte[] record = Arrays.copyOf(encoded, encoded.length + 1);
+            record[encoded.length] = separator;
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize transfer: " + entry.getId(), e);
+        }
+    }
+
+    private void scheduleCompaction(Queue queue) {
+        if (queue.compactionScheduled || queue.dead < compactionThreshold || queue.dead <= queue.index.size()) {
+            return;
+        }
+        queue.compactionScheduled = true;
+        maintenance.execute(() -> {
+            try {
+                compact(queue);
+            } catch (RuntimeException e) {
+                logger.error("Could not compact transfer queue: {}", queue.file, e);
+            }
+        });
+    }
+
+    private void compact(Queue queue) {
+        synchronized (queue) {
+            queue.compactionScheduled = false;
+            if (queue.dead == 0) {
+                return;
+            }
+            if (queue.index.isEmpty()) {
+                try {
+                    Files.deleteIfExists(queue.file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not delete transfer queue: " + queue.file, e);
+                }
+                queue.dead = 0;
+                return;
+            }
+            Map<UUID, long[]> compacted = new LinkedHashMap<>();
+            try (FileChannel channel = FileChannel.open(queue.file, StandardOpenOption.READ)) {
+                AtomicFileWriter.write(queue.file, out -> {
+                    long offset = 0;
+                    for (Map.Entry<UUID, long[]> live : queue.index.entrySet()) {
+                        ByteBuffer record = readRecord(channel, live.getValue());
+                        out.write(record.array());
+                        compacted.put(live.getKey(), new long[]{offset, record.capacity()});
+                        offset += record.capacity();
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not compact transfer queue: " + queue.file, e);
+            }
+            unsynced.remove(queue.file);
+            logger.debug("Transfer queue compacted: {}, {} records dropped", queue.file, queue.dead);
+            queue.index.clear();
+            queue.index.putAll(compacted);
+            queue.dead = 0;
+        }
+    }
+
+    private Queue queue(UUID userId, boolean incoming) {
+        Path file = dir.resolve(userId.toString()).resolve((incoming ? "in" : "out") + format.getJournalExtension());
+        return queues.computeIfAbsent(file, this::open);
+    }
+
+    // Чтение индекса очереди; оборванный хвост (запись без разделителя) отрезается
+    private Queue open(Path file) {
+        Queue queue = new Queue(file);
+        try {
+            if (Files.exists(file)) {
+                long offset = 0;
+                try (Stream<ByteBuffer> records = RecordReader.records(file, 0, separator)) {
+                    for (ByteBuffer record : (Iterable<ByteBuffer>) records::iterator) {
+                        int length = record.remaining();
+                        apply(queue, record, offset, length);
+                        offset += length;
+                    }
+                }
+                if (Files.size(file) > offset) {
+                    logger.warn("Truncating damaged tail of transfer queue: {}", file);
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        channel.truncate(offset);
+                    }
+                }
+            }
+            importLegacy(queue);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open transfer queue: " + file, e);
+        }
+        return queue;
+    }
+
+    private void apply(Queue queue, ByteBuffer record, long offset, int length) {
+        Entry entry;
+        try {
+            entry = codec.read(record, Entry.class);
+        } catch (IOException e) {
+            logger.warn("Skipping damaged record in transfer queue: {}", queue.file);
+            queue.dead++;
+            return;
+        }
+        if (entry.getTransfer() == null) {
+            if (queue.index.remove(entry.getId()) != null) {
+                queue.dead++;
+            }
+            queue.dead++;
+        } else if (queue.index.put(entry.getId(), new long[]{offset, length}) != null) {
+            queue.dead++;
+        }
+    }
+
+    // Каталог in/ или out/ с отдельными файлами переводов: файлы переносятся в очередь и удаляются
+    private void importLegacy(Queue queue) throws IOException {
+        String name = queue.file.getFileName().toString();
+        Path legacy = queue.file.resolveSibling(name.substring(0, name.length() - format.getJournalExtension().length()));
+        if (!Files.isDirectory(legacy)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> list = Files.list(legacy)) {
+            files = list.filter(f -> f.getFileName().toString().endsWith(format.getExtension())).sorted().toList();
+        }
+        List<TransferFile> transfers = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                transfers.add(codec.read(file, TransferFile.class));
+            } catch (IOException e) {
+                logger.error("Error reading transfer file: {}", file.getFileName(), e);
+            }
+        }
+        transfers.sort(Comparator.comparing(TransferFile::getCreated, Comparator.nullsFirst(Comparator.naturalOrder())));
+        if (sealingLegacy) {
+            TransferSealer sealer = TransferSealer.configured();
+            transfers.replaceAll(transfer -> transfer.getEncryptedData() == null ? sealer.seal(transfer) : transfer);
+        } else if (!transfers.isEmpty()) {
+            logger.warn("Transfer files found after sealing migration, left unsealed: {}", legacy);
+        }
+        if (!transfers.isEmpty()) {
+            List<long[]> locations = writeAll(queue,
+                    transfers.stream().map(t -> new Entry(t.getTransactionId(), t)).toList());
+            for (int i = 0; i < transfers.size(); i++) {
+                queue.index.put(transfers.get(i).getTransactionId(), locations.get(i));
+            }
+        }
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        try {
+            Files.deleteIfExists(legacy);
+        } catch (IOException e) {
+            logger.warn("Could not remove legacy transfer directory: {}", legacy);
+        }
+        logger.info("Transfer files moved into queue {}: {}", queue.file, transfers.size());
+    }
+
+    private static class Queue {
+        private final Path file;
+        private final LinkedHashMap<UUID, long[]> index = new LinkedHashMap<>();
+        private int dead;
+        private boolean compactionScheduled;
+
+        private Queue(Path file) {
+            this.file = file;
+        }
+    }
+
+    // Запись очереди: перевод или надгробие (transfer == null)
+    @Data
+    public static class Entry {
+        private final UUID id;
+        private final TransferFile transfer;
+
+        @JsonCreator
+        public Entry(@JsonProperty("id") UUID id, @JsonProperty("transfer") TransferFile transfer) {
+            this.id = id;
+            this.transfer = transfer;
+        }
+    }
+}
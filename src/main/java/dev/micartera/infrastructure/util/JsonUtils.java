@@ -1,26 +1,88 @@
 package dev.micartera.infrastructure.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Чтение и запись JSON напрямую из байтов и потоков, без промежуточных строк.
+// Reader/Writer для каждого типа создаются один раз; BlackbirdModule заменяет
+// рефлексию при доступе к полям сгенерированными лямбдами.
 public class JsonUtils {
     private static final Logger logger = LoggerFactory.getLogger(JsonUtils.class);
     private static final ObjectMapper mapper;
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
 
     static {
         mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(new BlackbirdModule());
     }
 
     public static String toJson(Object obj) throws IOException {
-        return mapper.writeValueAsString(obj);
+        return writer(obj.getClass()).writeValueAsString(obj);
+    }
+
+    // UTF-8 байты напрямую, без промежуточной строки
+    public static byte[] toBytes(Object obj) throws IOException {
+        return writer(obj.getClass()).writeValueAsBytes(obj);
+    }
+
+    // Запись в поток по мере сериализации; поток не закрывается
+    public static void write(OutputStream out, Object obj) throws IOException {
+        writer(obj.getClass()).writeValue(out, obj);
     }
 
     public static <T> T fromJson(String json, Class<T> clazz) throws IOException {
-        return mapper.readValue(json, clazz);
+        return reader(clazz).readValue(json);
+    }
+
+    public static <T> T fromJson(byte[] json, Class<T> clazz) throws IOException {
+        return reader(clazz).readValue(json);
+    }
+
+    public static <T> T read(InputStream in, Class<T> clazz) throws IOException {
+        return reader(clazz).readValue(in);
+    }
+
+    public static <T> T read(ReadableByteChannel channel, Class<T> clazz) throws IOException {
+        return read(Channels.newInputStream(channel), clazz);
+    }
+
+    // Разбор файла потоком, без загрузки его целиком в память
+    public static <T> T read(Path file, Class<T> clazz) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, clazz);
+        }
+    }
+
+    // Последовательное чтение значений, записанных подряд (JSON Lines), одним потоковым парсером
+    public static <T> MappingIterator<T> readValues(InputStream in, Class<T> clazz) throws IOException {
+        return reader(clazz).readValues(in);
+    }
+
+    private static ObjectReader reader(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, mapper::readerFor);
+    }
+
+    private static ObjectWriter writer(Class<?> clazz) {
+        return writers.computeIfAbsent(clazz,
+                type -> mapper.writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
     }
-}
\ No newline at end of file
+}
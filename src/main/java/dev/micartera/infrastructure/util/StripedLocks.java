@@ -0,0 +1,77 @@
+package dev.micartera.infrastructure.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Фиксированный набор блокировок, ключ выбирает одну из них по хешу. Изменения одного кошелька
+// выполняются строго по очереди, разных - параллельно (совпадение полосы у разных ключей
+// маловероятно при числе полос много больше числа потоков). Память не растет с числом ключей.
+public class StripedLocks {
+    private static final StripedLocks WALLETS = new StripedLocks(256);
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    // Общие для процесса блокировки кошельков по userId
+    public static StripedLocks forWallets() {
+        return WALLETS;
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        return stripes[stripe(key)];
+    }
+
+    public <T> T withLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Две блокировки сразу (перевод между кошельками): берутся по возрастанию номера полосы,
+    // поэтому встречные операции над той же парой не блокируют друг друга навечно;
+    // ключи из одной полосы - одна блокировка
+    public <T> T withLocks(Object first, Object second, Supplier<T> action) {
+        int a = stripe(first);
+        int b = stripe(second);
+        if (a == b) {
+            return withLock(first, action);
+        }
+        ReentrantLock outer = stripes[Math.min(a, b)];
+        ReentrantLock inner = stripes[Math.max(a, b)];
+        outer.lock();
+        try {
+            inner.lock();
+            try {
+                return action.get();
+            } finally {
+                inner.unlock();
+            }
+        } finally {
+            outer.unlock();
+        }
+    }
+
+    public void withLock(Object key, Runnable action) {
+        withLock(key, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
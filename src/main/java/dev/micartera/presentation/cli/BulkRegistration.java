@@ -0,0 +1,58 @@
+package dev.micartera.presentation.cli;
+
+import dev.micartera.domain.model.ProvisioningReport;
+import dev.micartera.domain.service.UserProvisioningService;
+import dev.micartera.domain.service.ValidationService;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.config.LoggerConfig;
+import dev.micartera.infrastructure.repository.Repositories;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Массовая регистрация пользователей из выгрузки:
+//   java -cp miCartera.jar dev.micartera.presentation.cli.BulkRegistration users.csv
+// Файлы .json и .jsonl читаются как JSON, остальные - как CSV "login,password".
+public class BulkRegistration {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Использование: BulkRegistration <файл .csv | .json | .jsonl>");
+            System.exit(2);
+        }
+        ApplicationConfig.initialize();
+        LoggerConfig.initialize();
+        Path file = Path.of(args[0]);
+        Repositories repositories = Repositories.configured();
+        try {
+            UserProvisioningService service = new UserProvisioningService(repositories.getUserRepository(),
+                    repositories.getWalletRepository(), new ValidationService());
+            ProvisioningReport report;
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".json") || name.endsWith(".jsonl")) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    report = service.provisionJson(in);
+                }
+            } else {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    report = service.provisionCsv(reader);
+                }
+            }
+            print(report);
+        } finally {
+            repositories.close();
+        }
+    }
+
+    private static void print(ProvisioningReport report) {
+        System.out.printf("Обработано записей: %d, создано пользователей: %d, отклонено: %d%n",
+                report.getProcessed(), report.getCreated(), report.getFailures().size());
+        System.out.printf("Время: %d мс, %.1f пользователей/с%n", report.getElapsedMs(), report.getUsersPerSecond());
+        for (ProvisioningReport.Failure failure : report.getFailures()) {
+            System.out.printf("  запись %d (%s): %s%n", failure.getRecord(), failure.getLogin(), failure.getReason());
+        }
+    }
+}
@@ -6,8 +6,7 @@ import dev.micartera.domain.exception.ValidationException;
 import dev.micartera.domain.model.*;
 import dev.micartera.domain.service.*;
 import dev.micartera.infrastructure.config.ApplicationConfig;
-import dev.micartera.infrastructure.repository.impl.UserRepositoryImpl;
-import dev.micartera.infrastructure.repository.impl.WalletRepositoryImpl;
+import dev.micartera.infrastructure.repository.Repositories;
 import dev.micartera.presentation.service.SessionState;
 import dev.micartera.presentation.util.Color;
 import dev.micartera.presentation.util.ColorPrinter;
@@ -15,8 +14,13 @@ import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
@@ -35,16 +39,17 @@ public class MenuManager {
     private final TransactionService transactionService;
     private final NotificationService notificationService;
     private final ValidationService validationService;
+    private final Repositories repositories;
+    private final TransferExpirySweeper transferExpirySweeper;
     private boolean balanceIsAlwaysVisible = true;
     private final String MENU_SIGN = " \u25BC";
     private final String CLOSE_SIGN = " \u2612";
     private final String SIGNOUT_SIGN = " \u27A6";
 
     public MenuManager() {
-        UserRepositoryImpl userRepository = new UserRepositoryImpl();
-        WalletRepositoryImpl walletRepository = new WalletRepositoryImpl();
+        this.repositories = Repositories.configured();
 
-        this.sessionState = new SessionState(walletRepository, userRepository);
+        this.sessionState = new SessionState(repositories.getWalletRepository(), repositories.getUserRepository());
         this.scanner = new Scanner(System.in);
         this.inputValidator = new InputValidator();
         this.formatter = new OutputFormatter();
@@ -54,25 +59,29 @@ public class MenuManager {
 
         this.authenticationService = new AuthenticationService(
                 sessionState,
-                userRepository,
+                repositories.getUserRepository(),
                 validationService
         );
 
         this.walletService = new WalletService(
-                walletRepository,
+                repositories.getWalletRepository(),
                 validationService,
                 notificationService,
                 sessionState
         );
 
-        this.transactionService = new TransactionService(walletService, sessionState);
+        TransferEngine transferEngine = new TransferEngine(repositories.getUserRepository(),
+                repositories.getWalletRepository(), repositories.getTransactionRepository(), validationService);
+        this.transactionService = new TransactionService(walletService, sessionState,
+                repositories.getTransactionRepository(), transferEngine);
+        this.transferExpirySweeper = new TransferExpirySweeper(transferEngine);
+        transferExpirySweeper.start();
 
         initializeMenus();
     }
 
     private void switchMenu(String menuKey) {
         Menu nextMenu = menus.get(menuKey);
-        if (menuKey.equalsIgnoreCase("transfers")) menuItemIsUnderReconstruction(); // TODO: transfers are not ready yet
         if (nextMenu == null) {
             logger.error("Меню '{}' не найдено", menuKey);
             return;
@@ -86,7 +95,7 @@ public class MenuManager {
         Menu mainUnauthorized = new Menu("Главное меню");
         mainUnauthorized.addOption("1", "Вход в систему" + MENU_SIGN, () -> switchMenu("auth"));
         mainUnauthorized.addOption("2", "Регистрация" + MENU_SIGN, () -> switchMenu("register"));
-        mainUnauthorized.addOption("3", "Выход из приложения" + CLOSE_SIGN, () -> System.exit(0));
+        mainUnauthorized.addOption("3", "Выход из приложения" + CLOSE_SIGN, this::exitApplication);
         menus.put("main_unauthorized", mainUnauthorized);
 
         // Меню авторизации
@@ -111,7 +120,7 @@ public class MenuManager {
         mainAuthorized.addOption("3", "Статистика и отчеты" + MENU_SIGN, () -> switchMenu("reports"));
         mainAuthorized.addOption("4", "Настройки" + MENU_SIGN, () -> switchMenu("settings"));
         mainAuthorized.addOption("5", "Выход из аккаунта" + SIGNOUT_SIGN, () -> handleLogout());
-        mainAuthorized.addOption("6", "Выход из приложения" + CLOSE_SIGN, () -> System.exit(0));
+        mainAuthorized.addOption("6", "Выход из приложения" + CLOSE_SIGN, this::exitApplication);
         menus.put("main_authorized", mainAuthorized);
 
         // Меню управления финансами
@@ -161,11 +170,21 @@ public class MenuManager {
     private void initializeTransfers() {
         Menu transfersMenu = new Menu("Переводы");
         transfersMenu.addOption("1", "Новый перевод", this::handleNewTransfer);
-        transfersMenu.addOption("2", "Активные переводы" + MENU_SIGN, () -> switchMenu("active_transfers"));
-        transfersMenu.addOption("3", "История переводов" + MENU_SIGN, () -> switchMenu("transfer_history"));
-        transfersMenu.addOption("4", "Назад" + MENU_SIGN, () -> switchMenu("main_authorized"));
-        transfersMenu.addOption("5", "Выход из аккаунта" + SIGNOUT_SIGN, () -> handleLogout());
+        transfersMenu.addOption("2", "Массовый перевод из файла", this::handleBatchTransfer);
+        transfersMenu.addOption("3", "Активные переводы" + MENU_SIGN, () -> switchMenu("active_transfers"));
+        transfersMenu.addOption("4", "История переводов", this::handleTransferHistory);
+        transfersMenu.addOption("5", "Назад" + MENU_SIGN, () -> switchMenu("main_authorized"));
+        transfersMenu.addOption("6", "Выход из аккаунта" + SIGNOUT_SIGN, () -> handleLogout());
         menus.put("transfers", transfersMenu);
+
+        Menu activeTransfersMenu = new Menu("Активные переводы");
+        activeTransfersMenu.addOption("1", "Просмотр входящих и исходящих", this::handleViewActiveTransfers);
+        activeTransfersMenu.addOption("2", "Принять входящий перевод", () -> handleIncomingTransfer(true));
+        activeTransfersMenu.addOption("3", "Отклонить входящий перевод", () -> handleIncomingTransfer(false));
+        activeTransfersMenu.addOption("4", "Отозвать исходящий перевод", this::handleCancelTransfer);
+        activeTransfersMenu.addOption("5", "Назад" + MENU_SIGN, () -> switchMenu("transfers"));
+        activeTransfersMenu.addOption("6", "Выход из аккаунта" + SIGNOUT_SIGN, () -> handleLogout());
+        menus.put("active_transfers", activeTransfersMenu);
     }
 
     private void initializeReports() {
@@ -229,7 +248,7 @@ public class MenuManager {
             if (input.equalsIgnoreCase("exit")) {
                 System.out.println("До свидания!");
 //                saveSessionState();
-                System.exit(0);
+                exitApplication();
             }
 
             MenuOption option = currentMenu.getOptions().get(input);
@@ -580,8 +599,7 @@ public class MenuManager {
             LocalDateTime endDate = LocalDateTime.now();
             LocalDateTime startDate = endDate.minusMonths(defaultPeriodMonths);
 
-            List<Transaction> transactions = transactionService.getTransactionHistory(startDate, endDate);
-            showTransactionReport(transactions, startDate, endDate);
+            showTransactionReport(startDate, endDate);
         } catch (Exception e) {
             logger.error("Ошибка при формировании отчета за текущий период", e);
             System.out.println(formatter.formatError("Не удалось сформировать отчет"));
@@ -590,9 +608,7 @@ public class MenuManager {
 
     private void handleAllTimeReport() {
         try {
-            List<Transaction> transactions =
-                    transactionService.getTransactionHistory(LocalDateTime.MIN, LocalDateTime.now());
-            showTransactionReport(transactions, LocalDateTime.MIN, LocalDateTime.now());
+            showTransactionReport(LocalDateTime.MIN, LocalDateTime.now());
         } catch (Exception e) {
             logger.error("Ошибка при формировании истории транзакций", e);
             System.out.println(formatter.formatError("Не удалось сформировать историю транзакций"));
@@ -611,16 +627,18 @@ public class MenuManager {
                 return;
             }
 
-            List<Transaction> transactions = transactionService.getTransactionHistory(startDate, endDate);
-            showTransactionReport(transactions, startDate, endDate);
+            showTransactionReport(startDate, endDate);
         } catch (Exception e) {
             logger.error("Ошибка при формировании отчета за выбранный период", e);
             System.out.println(formatter.formatError("Не удалось сформировать отчет: " + e.getMessage()));
         }
     }
 
-    private void showTransactionReport(List<Transaction> transactions, LocalDateTime from, LocalDateTime to) {
-        if (transactions.isEmpty()) {
+    // Отчет выводится постранично: в памяти только текущая страница, итоги считаются потоком
+    private void showTransactionReport(LocalDateTime from, LocalDateTime to) {
+        int pageSize = ApplicationConfig.getIntProperty("app.report.page-size", 20);
+        List<Transaction> page = transactionService.getTransactionHistoryPage(from, to, null, pageSize);
+        if (page.isEmpty()) {
             System.out.println(formatter.formatInfo("Нет транзакций за указанный период"));
             return;
         }
@@ -630,27 +648,187 @@ public class MenuManager {
                 from.format(dateFormat), to.format(dateFormat));
         System.out.println(formatter.formatCaption(reportsCaption));
 
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpense = BigDecimal.ZERO;
-
-        for (Transaction t : transactions) {
-            System.out.println(formatter.formatTransaction(t));
-
-            if (t.getType() == Transaction.TransactionType.INCOME) {
-                totalIncome = totalIncome.add(t.getAmount());
-            } else if (t.getType() == Transaction.TransactionType.EXPENSE) {
-                totalExpense = totalExpense.add(t.getAmount());
+        while (!page.isEmpty()) {
+            page.forEach(t -> System.out.println(formatter.formatTransaction(t)));
+            if (page.size() < pageSize || !readNextPageRequest()) {
+                break;
             }
+            HistoryCursor cursor = HistoryCursor.after(page.get(page.size() - 1));
+            page = transactionService.getTransactionHistoryPage(from, to, cursor, pageSize);
         }
 
+        Map<Transaction.TransactionType, BigDecimal> totals = transactionService.getTransactionTotals(from, to);
+        BigDecimal totalIncome = totals.getOrDefault(Transaction.TransactionType.INCOME, BigDecimal.ZERO);
+        BigDecimal totalExpense = totals.getOrDefault(Transaction.TransactionType.EXPENSE, BigDecimal.ZERO);
+
         System.out.println(formatter.formatCaption("Итого за период:"));
         System.out.println("Доходы: " + formatter.formatAmount(totalIncome));
         System.out.println("Расходы: " + formatter.formatAmount(totalExpense));
         System.out.println("Баланс: " + formatter.formatAmount(totalIncome.subtract(totalExpense)));
     }
 
+    private boolean readNextPageRequest() {
+        try {
+            String choice = inputValidator.readString("Enter - следующая страница, q - итоги: ");
+            return !choice.equalsIgnoreCase("q");
+        } catch (CommandCancelledException e) {
+            return false;
+        }
+    }
+
     private void handleNewTransfer() {
-        ColorPrinter.println("Переводы временно недоступны", Color.RED);
+        try {
+            String login = inputValidator.readString("Введите логин получателя: ");
+            BigDecimal amount = inputValidator.readAmount("Введите сумму перевода: ");
+
+            transactionService.createTransfer(sessionState.getCurrentUser().getId(), login, amount);
+            System.out.println(formatter.formatSuccess("Перевод создан и ожидает подтверждения получателем"));
+        } catch (CommandCancelledException e) {
+            System.out.println(formatter.formatInfo("Операция отменена"));
+        } catch (Exception e) {
+            logger.error("Ошибка при создании перевода", e);
+            System.out.println(formatter.formatError(e.getMessage()));
+        }
+    }
+
+    private void handleBatchTransfer() {
+        try {
+            Path file = Path.of(inputValidator.readString("Путь к файлу заявки (CSV login,amount): "));
+            String key = inputValidator.readString("Ключ заявки (Enter - без ключа): ");
+            List<TransferOrder> orders;
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                orders = transactionService.readTransferOrders(reader);
+            }
+
+            TransferBatchReport report = transactionService.createTransfers(sessionState.getCurrentUser().getId(),
+                    orders, key.isEmpty() ? null : key);
+            System.out.println(formatter.formatSuccess(String.format("Создано переводов: %d из %d, списано: %s",
+                    report.getCreated(), report.getLines().size(), formatter.formatAmount(report.getDebited()))));
+            for (TransferBatchReport.Line line : report.getFailures()) {
+                System.out.println(formatter.formatWarning(String.format("  строка %d (%s): %s",
+                        line.getLine(), line.getLogin(), line.getError())));
+            }
+        } catch (CommandCancelledException e) {
+            System.out.println(formatter.formatInfo("Операция отменена"));
+        } catch (IOException e) {
+            logger.error("Ошибка при чтении заявки на массовый перевод", e);
+            System.out.println(formatter.formatError("Не удалось прочитать файл заявки"));
+        } catch (Exception e) {
+            logger.error("Ошибка при создании массового перевода", e);
+            System.out.println(formatter.formatError(e.getMessage()));
+        }
+    }
+
+    private void handleViewActiveTransfers() {
+        printIncomingTransfers();
+        List<Transaction> outgoing = transactionService.getOutgoingTransfers();
+        System.out.println(formatter.formatCaption("Исходящие переводы:"));
+        if (outgoing.isEmpty()) {
+            System.out.println(formatter.formatInfo("Нет исходящих переводов"));
+        }
+        for (int i = 0; i < outgoing.size(); i++) {
+            System.out.printf("%d. %s%n", i + 1, formatter.formatTransaction(outgoing.get(i)));
+        }
+    }
+
+    private void handleIncomingTransfer(boolean approve) {
+        try {
+            List<TransferFile> incoming = printIncomingTransfers();
+            if (incoming.isEmpty()) {
+                return;
+            }
+            TransferFile transfer = incoming.get(readChoice(incoming.size()));
+            UUID userId = sessionState.getCurrentUser().getId();
+
+            if (approve) {
+                transactionService.approveTransfer(userId, transfer.getTransactionId());
+                System.out.println(formatter.formatSuccess("Перевод принят, средства зачислены"));
+            } else {
+                transactionService.rejectTransfer(userId, transfer.getTransactionId());
+                System.out.println(formatter.formatSuccess("Перевод отклонен"));
+            }
+        } catch (CommandCancelledException e) {
+            System.out.println(formatter.formatInfo("Операция отменена"));
+        } catch (Exception e) {
+            logger.error("Ошибка при обработке входящего перевода", e);
+            System.out.println(formatter.formatError(e.getMessage()));
+        }
+    }
+
+    private void handleCancelTransfer() {
+        try {
+            List<Transaction> outgoing = transactionService.getOutgoingTransfers();
+            if (outgoing.isEmpty()) {
+                System.out.println(formatter.formatInfo("Нет исходящих переводов"));
+                return;
+            }
+            for (int i = 0; i < outgoing.size(); i++) {
+                System.out.printf("%d. %s%n", i + 1, formatter.formatTransaction(outgoing.get(i)));
+            }
+            Transaction transfer = outgoing.get(readChoice(outgoing.size()));
+
+            transactionService.cancelTransfer(sessionState.getCurrentUser().getId(), transfer.getId());
+            System.out.println(formatter.formatSuccess("Перевод отозван, средства возвращены"));
+        } catch (CommandCancelledException e) {
+            System.out.println(formatter.formatInfo("Операция отменена"));
+        } catch (Exception e) {
+            logger.error("Ошибка при отзыве перевода", e);
+            System.out.println(formatter.formatError(e.getMessage()));
+        }
+    }
+
+    private void handleTransferHistory() {
+        try {
+            List<Transaction> transfers = transactionService.getTransferHistory();
+            if (transfers.isEmpty()) {
+                System.out.println(formatter.formatInfo("Переводов пока не было"));
+                return;
+            }
+            System.out.println(formatter.formatCaption("История переводов:"));
+            transfers.forEach(t -> System.out.println(formatter.formatTransaction(t) + " | " + t.getStatus()));
+        } catch (Exception e) {
+            logger.error("Ошибка при получении истории переводов", e);
+            System.out.println(formatter.formatError("Не удалось получить историю переводов"));
+        }
+    }
+
+    // Первая страница входящих (самые ранние); остальные станут видны по мере обработки
+    private List<TransferFile> printIncomingTransfers() {
+        int pageSize = ApplicationConfig.getIntProperty("app.report.page-size", 20);
+        int count = transactionService.countIncomingTransfers();
+        List<TransferFile> incoming = transactionService.getIncomingTransfers(0, pageSize);
+
+        System.out.println(formatter.formatCaption("Входящие переводы (" + count + "):"));
+        if (incoming.isEmpty()) {
+            System.out.println(formatter.formatInfo("Нет входящих переводов"));
+        }
+        for (int i = 0; i < incoming.size(); i++) {
+            System.out.printf("%d. %s%n", i + 1, formatTransferFile(incoming.get(i)));
+        }
+        if (count > incoming.size()) {
+            System.out.println(formatter.formatInfo("... и еще " + (count - incoming.size())));
+        }
+        return incoming;
+    }
+
+    private String formatTransferFile(TransferFile transfer) {
+        return formatter.formatDate(transfer.getCreated()) + " | от " + transfer.getSenderLogin() + " | "
+                + formatter.formatAmount(transfer.getAmount());
+    }
+
+    // Номер элемента списка (с 1), возвращается индекс
+    private int readChoice(int size) {
+        while (true) {
+            String input = inputValidator.readString("Номер перевода: ");
+            try {
+                int choice = Integer.parseInt(input.trim());
+                if (choice > 0 && choice <= size) {
+                    return choice - 1;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+            System.out.println(formatter.formatError("Неверный выбор. Попробуйте снова."));
+        }
     }
 
     private void handleChangePassword() {
@@ -734,6 +912,12 @@ public class MenuManager {
         }
     }
 
+    private void exitApplication() {
+        transferExpirySweeper.close();
+        repositories.close();
+        System.exit(0);
+    }
+
     public void emergencyShutdown() {
         try {
             User currentUser = sessionState.getCurrentUser();
@@ -744,6 +928,9 @@ public class MenuManager {
             }
         } catch (Exception e) {
             logger.error("Ошибка при аварийном сохранении состояния", e);
+        } finally {
+            transferExpirySweeper.close();
+            repositories.close();
         }
     }
 }
@@ -820,103 +1007,3 @@ class InputValidator {
         }
     }
 }
-
-class OutputFormatter {
-    private static final DateTimeFormatter dateFormatter =
-            DateTimeFormatter.ofPattern(ApplicationConfig.getProperty("app.date-format"));
-    private static final String INCOME_SIGN = "➕ ";
-    private static final String EXPENSE_SIGN = "➖ ";
-    private static final String TRANSFER_SIGN = " ↔  ";
-
-    public void printDelimiter() {
-        System.out.print("-".repeat(32));
-    }
-
-    public String formatSuccess(String message) {
-
-        return "\n" + ColorPrinter.getColoredString("  ✓ " + message + "  ", Color.BRIGHT_WHITE, Color.BG_GREEN);
-    }
-
-    public String formatError(String message) {
-        return "\n" + ColorPrinter.getColoredString("  ✗ Ошибка: " + message + "  ", Color.BRIGHT_WHITE, Color.BG_RED);
-    }
-
-    public String formatCaption(String message) {
-        return "\n" + ColorPrinter.getColoredString("  " + message + "  ", Color.BRIGHT_WHITE, Color.BG_BLUE);
-    }
-
-    public String formatWarning(String message) {
-        return ColorPrinter.getColoredString("  " + message + "  ", Color.BLUE, Color.BG_BRIGHT_WHITE);
-    }
-
-    public String formatInfo(String message) {
-        return ColorPrinter.getColoredString(message, Color.BRIGHT_CYAN);
-    }
-
-    public String formatPrompt(String prompt) {
-        return ColorPrinter.getColoredString(prompt, Color.BRIGHT_GREEN);
-    }
-
-    public String formatAmount(BigDecimal amount) {
-        return String.format("%,.2f ₽", amount);
-    }
-
-    public String formatDate(LocalDateTime date) {
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-        return date.format(dateFormatter);
-    }
-
-    public String formatTransaction(Transaction transaction) {
-
-        StringBuilder sb = new StringBuilder();
-        String sign = "";
-        String colorCode = "";
-        switch (transaction.getType()) {
-            case INCOME -> {
-                sign = INCOME_SIGN;
-                colorCode = Color.BRIGHT_WHITE.getCode();
-            }
-            case EXPENSE -> {
-                sign = EXPENSE_SIGN;
-                colorCode = Color.RESET.getCode();
-            }
-            case TRANSFER -> { // TODO: будет реализовано позже при добавлении переводов
-                sign = TRANSFER_SIGN;
-                colorCode = Color.GRAY.getCode();
-            }
-        }
-
-        // Выделим транзакции по типу разными цветами
-        sb.append(colorCode);
-
-        // Форматируем дату
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-        sb.append(transaction.getCreated().format(dateFormatter))
-                .append(" | ");
-
-        // Добавляем тип транзакции и сумму
-        sb.append(sign);
-
-        sb.append(formatAmount(transaction.getAmount()))
-                .append(" | ");
-
-        // Добавляем категорию если есть
-        if (transaction.getCategory() != null) {
-            sb.append(transaction.getCategory().getName())
-                    .append(" | ");
-        }
-
-        // Добавляем описание если есть
-        if (transaction.getDescription() != null && !transaction.getDescription().isEmpty()) {
-            sb.append(transaction.getDescription());
-        }
-
-        // Добавляем статус для переводов
-        if (transaction.getType() == Transaction.TransactionType.TRANSFER) {
-            sb.append(" | Статус: ").append(transaction.getStatus());
-        }
-        sb.append(Color.RESET.getCode());
-
-        return sb.toString();
-    }
-}
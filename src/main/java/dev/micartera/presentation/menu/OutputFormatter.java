@@ -0,0 +1,110 @@
+package dev.micartera.presentation.menu;
+
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.presentation.util.Color;
+import dev.micartera.presentation.util.ColorPrinter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+class OutputFormatter {
+    private static final DateTimeFormatter dateFormatter =
+            DateTimeFormatter.ofPattern(ApplicationConfig.getProperty("app.date-format"));
+    private static final String INCOME_SIGN = "➕ ";
+    private static final String EXPENSE_SIGN = "➖ ";
+    private static final String TRANSFER_SIGN = " ↔  ";
+
+    public void printDelimiter() {
+        System.out.print("-".repeat(32));
+    }
+
+    public String formatSuccess(String message) {
+
+        return "\n" + ColorPrinter.getColoredString("  ✓ " + message + "  ", Color.BRIGHT_WHITE, Color.BG_GREEN);
+    }
+
+    public String formatError(String message) {
+        return "\n" + ColorPrinter.getColoredString("  ✗ Ошибка: " + message + "  ", Color.BRIGHT_WHITE, Color.BG_RED);
+    }
+
+    public String formatCaption(String message) {
+        return "\n" + ColorPrinter.getColoredString("  " + message + "  ", Color.BRIGHT_WHITE, Color.BG_BLUE);
+    }
+
+    public String formatWarning(String message) {
+        return ColorPrinter.getColoredString("  " + message + "  ", Color.BLUE, Color.BG_BRIGHT_WHITE);
+    }
+
+    public String formatInfo(String message) {
+        return ColorPrinter.getColoredString(message, Color.BRIGHT_CYAN);
+    }
+
+    public String formatPrompt(String prompt) {
+        return ColorPrinter.getColoredString(prompt, Color.BRIGHT_GREEN);
+    }
+
+    public String formatAmount(BigDecimal amount) {
+        return String.format("%,.2f ₽", amount);
+    }
+
+    public String formatDate(LocalDateTime date) {
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+        return date.format(dateFormatter);
+    }
+
+    public String formatTransaction(Transaction transaction) {
+
+        StringBuilder sb = new StringBuilder();
+        String sign = "";
+        String colorCode = "";
+        switch (transaction.getType()) {
+            case INCOME -> {
+                sign = INCOME_SIGN;
+                colorCode = Color.BRIGHT_WHITE.getCode();
+            }
+            case EXPENSE -> {
+                sign = EXPENSE_SIGN;
+                colorCode = Color.RESET.getCode();
+            }
+            case TRANSFER -> { // TODO: будет реализовано позже при добавлении переводов
+                sign = TRANSFER_SIGN;
+                colorCode = Color.GRAY.getCode();
+            }
+        }
+
+        // Выделим транзакции по типу разными цветами
+        sb.append(colorCode);
+
+        // Форматируем дату
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+        sb.append(transaction.getCreated().format(dateFormatter))
+                .append(" | ");
+
+        // Добавляем тип транзакции и сумму
+        sb.append(sign);
+
+        sb.append(formatAmount(transaction.getAmount()))
+                .append(" | ");
+
+        // Добавляем категорию если есть
+        if (transaction.getCategory() != null) {
+            sb.append(transaction.getCategory().getName())
+                    .append(" | ");
+        }
+
+        // Добавляем описание если есть
+        if (transaction.getDescription() != null && !transaction.getDescription().isEmpty()) {
+            sb.append(transaction.getDescription());
+        }
+
+        // Добавляем статус для переводов
+        if (transaction.getType() == Transaction.TransactionType.TRANSFER) {
+            sb.append(" | Статус: ").append(transaction.getStatus());
+        }
+        sb.append(Color.RESET.getCode());
+
+        return sb.toString();
+    }
+}
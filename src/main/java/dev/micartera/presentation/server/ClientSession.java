@@ -0,0 +1,165 @@
+package dev.micartera.presentation.server;
+
+import dev.micartera.domain.model.Category;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.domain.service.AuthenticationService;
+import dev.micartera.domain.service.NotificationService;
+import dev.micartera.domain.service.ValidationService;
+import dev.micartera.domain.service.WalletService;
+import dev.micartera.infrastructure.repository.Repositories;
+import dev.micartera.presentation.service.SessionState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+
+// Одно подключение к серверу: собственное состояние сессии и сервисы поверх общих репозиториев.
+// Протокол строковый: команда в строке, ответ - одна строка "OK ..." или "ERR <причина>".
+class ClientSession implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(ClientSession.class);
+    private final Socket socket;
+    private final OpenWallets wallets;
+    private final SessionState sessionState;
+    private final NotificationService notificationService;
+    private final AuthenticationService authenticationService;
+    private final WalletService walletService;
+    private UUID walletOwner;
+
+    ClientSession(Socket socket, Repositories repositories, OpenWallets wallets) {
+        this.socket = socket;
+        this.wallets = wallets;
+        ValidationService validationService = new ValidationService();
+        this.sessionState = new SessionState(repositories.getWalletRepository(), repositories.getUserRepository());
+        this.notificationService = new NotificationService(sessionState);
+        this.authenticationService = new AuthenticationService(sessionState, repositories.getUserRepository(),
+                validationService);
+        this.walletService = new WalletService(repositories.getWalletRepository(), validationService,
+                notificationService, sessionState);
+    }
+
+    @Override
+    public void run() {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)), true)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] command = line.trim().split("\\s+", 4);
+                if (command[0].equalsIgnoreCase("QUIT")) {
+                    out.println("OK bye");
+                    break;
+                }
+                out.println(execute(command));
+            }
+        } catch (IOException e) {
+            logger.debug("Connection closed: {}", e.getMessage());
+        } finally {
+            logout();
+        }
+    }
+
+    private String execute(String[] command) {
+        try {
+            String reply = switch (command[0].toUpperCase()) {
+                case "PING" -> "pong";
+                case "REGISTER" -> register(argument(command, 1), argument(command, 2));
+                case "LOGIN" -> login(argument(command, 1), argument(command, 2));
+                case "LOGOUT" -> {
+                    logout();
+                    yield "bye";
+                }
+                default -> inWallet(command);
+            };
+            return "OK " + reply;
+        } catch (RuntimeException e) {
+            return "ERR " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            notificationService.clearNotifications();
+        }
+    }
+
+    // Команды над кошельком выполняются под блокировкой кошелька пользователя
+    private String inWallet(String[] command) {
+        if (walletOwner == null) {
+            throw new IllegalStateException("Требуется вход (LOGIN)");
+        }
+        return wallets.locked(walletOwner, () -> switch (command[0].toUpperCase()) {
+            case "BALANCE" -> sessionState.getCurrentWallet().getBalance().toPlainString();
+            case "CATEGORY" -> {
+                walletService.addCategory(argument(command, 2),
+                        Category.CategoryType.valueOf(argument(command, 1).toUpperCase()));
+                yield "created";
+            }
+            case "INCOME" -> {
+                walletService.addIncome(new BigDecimal(argument(command, 1)), category(argument(command, 2)),
+                        command.length > 3 ? command[3] : "");
+                yield sessionState.getCurrentWallet().getBalance().toPlainString();
+            }
+            case "EXPENSE" -> {
+                walletService.addExpense(new BigDecimal(argument(command, 1)), category(argument(command, 2)),
+                        command.length > 3 ? command[3] : "");
+                yield sessionState.getCurrentWallet().getBalance().toPlainString();
+            }
+            default -> throw new IllegalArgumentException("Неизвестная команда: " + command[0]);
+        });
+    }
+
+    private String register(String login, String password) {
+        User user = authenticationService.register(login, password);
+        walletService.createWallet(user.getId());
+        return user.getId().toString();
+    }
+
+    private String login(String login, String password) {
+        if (walletOwner != null) {
+            throw new IllegalStateException("Сессия уже открыта");
+        }
+        Optional<User> user = authenticationService.authenticate(login, password);
+        if (user.isEmpty()) {
+            throw new IllegalArgumentException("Неверный пароль");
+        }
+        Wallet wallet = wallets.acquire(user.get().getId());
+        walletOwner = user.get().getId();
+        sessionState.setCurrentSession(user.get(), wallet);
+        return "welcome " + login;
+    }
+
+    private void logout() {
+        UUID owner = walletOwner;
+        if (owner == null) {
+            return;
+        }
+        walletOwner = null;
+        try {
+            wallets.locked(owner, () -> {
+                sessionState.saveAndClose();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Error closing session: {}", owner, e);
+        } finally {
+            wallets.release(owner);
+        }
+    }
+
+    private Category category(String name) {
+        return sessionState.getCurrentWallet().getCategories().stream()
+                .filter(c -> c.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Категория не найдена: " + name));
+    }
+
+    private static String argument(String[] command, int index) {
+        if (command.length <= index) {
+            throw new IllegalArgumentException("Недостаточно аргументов для " + command[0]);
+        }
+        return command[index];
+    }
+}
@@ -0,0 +1,60 @@
+package dev.micartera.presentation.server;
+
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.repository.WalletRepository;
+import dev.micartera.infrastructure.util.StripedLocks;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Кошельки пользователей, у которых открыта хотя бы одна сессия. Все сессии одного пользователя
+// работают с одним экземпляром кошелька и выполняют команды под его блокировкой
+// (той же, что берет WalletService), сессии разных пользователей друг друга не ждут.
+class OpenWallets {
+    private final WalletRepository walletRepository;
+    private final Map<UUID, OpenWallet> open = new ConcurrentHashMap<>();
+    private final StripedLocks locks = StripedLocks.forWallets();
+
+    OpenWallets(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    Wallet acquire(UUID userId) {
+        return open.compute(userId, (id, entry) -> {
+            OpenWallet target = entry;
+            if (target == null) {
+                target = new OpenWallet(walletRepository.findByUserId(id)
+                        .orElseThrow(() -> new IllegalStateException("Кошелек не найден")));
+            }
+            target.sessions++;
+            return target;
+        }).wallet;
+    }
+
+    // Последняя сессия пользователя освобождает кошелек; следующий вход прочитает его из хранилища
+    void release(UUID userId) {
+        open.computeIfPresent(userId, (id, entry) -> --entry.sessions == 0 ? null : entry);
+    }
+
+    <T> T locked(UUID userId, Supplier<T> command) {
+        if (!open.containsKey(userId)) {
+            throw new IllegalStateException("Кошелек не открыт: " + userId);
+        }
+        return locks.withLock(userId, command);
+    }
+
+    int size() {
+        return open.size();
+    }
+
+    private static class OpenWallet {
+        private final Wallet wallet;
+        private int sessions;
+
+        private OpenWallet(Wallet wallet) {
+            this.wallet = wallet;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package dev.micartera.presentation.server;
+
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.config.LoggerConfig;
+import dev.micartera.infrastructure.repository.Repositories;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Серверный режим: много одновременных сессий в одном процессе, по виртуальному потоку на
+// подключение. Слушает только локальный адрес (app.server.host, app.server.port):
+//   java -cp miCartera.jar dev.micartera.presentation.server.SessionServer
+// Команды: PING, REGISTER <login> <password>, LOGIN <login> <password>, BALANCE,
+// CATEGORY <INCOME|EXPENSE> <name>, INCOME|EXPENSE <amount> <category> [description], LOGOUT, QUIT
+public class SessionServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SessionServer.class);
+    private final Repositories repositories;
+    private final OpenWallets wallets;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong accepted = new AtomicLong();
+    private final Thread acceptor;
+
+    public SessionServer(Repositories repositories, String host, int port) throws IOException {
+        this.repositories = repositories;
+        this.wallets = new OpenWallets(repositories.getWalletRepository());
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getByName(host));
+        this.acceptor = new Thread(this::acceptLoop, "session-acceptor");
+    }
+
+    public static void main(String[] args) throws Exception {
+        ApplicationConfig.initialize();
+        LoggerConfig.initialize();
+        Repositories repositories = Repositories.configured();
+        SessionServer server = new SessionServer(repositories,
+                ApplicationConfig.getProperty("app.server.host", "127.0.0.1"),
+                ApplicationConfig.getIntProperty("app.server.port", 7070));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            repositories.close();
+        }, "session-server-shutdown"));
+        server.start();
+        System.out.println("Сервер запущен на порту " + server.getPort());
+        server.acceptor.join();
+    }
+
+    public void start() {
+        acceptor.start();
+        logger.info("Session server listening on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                accepted.incrementAndGet();
+                connections.add(socket);
+                sessions.execute(() -> {
+                    try {
+                        new ClientSession(socket, repositories, wallets).run();
+                    } finally {
+                        connections.remove(socket);
+                    }
+                });
+            } catch (SocketException e) {
+                // сокет закрыт при остановке сервера
+            } catch (IOException e) {
+                logger.error("Error accepting connection", e);
+            }
+        }
+    }
+
+    // Новые подключения больше не принимаются; соединения закрываются, и сессии сохраняют
+    // состояние как при разрыве связи. Потоки не прерываются: прерывание закрыло бы файлы хранилища.
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.warn("Could not close server socket", e);
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Could not close connection: {}", e.getMessage());
+            }
+        }
+        sessions.shutdown();
+        try {
+            if (!sessions.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Sessions did not finish in time, open wallets: {}", wallets.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Session server stopped, connections served: {}", accepted.get());
+    }
+}
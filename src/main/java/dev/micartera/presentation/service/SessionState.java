@@ -2,8 +2,8 @@ package dev.micartera.presentation.service;
 
 import dev.micartera.domain.model.User;
 import dev.micartera.domain.model.Wallet;
-import dev.micartera.infrastructure.repository.impl.UserRepositoryImpl;
-import dev.micartera.infrastructure.repository.impl.WalletRepositoryImpl;
+import dev.micartera.infrastructure.repository.UserRepository;
+import dev.micartera.infrastructure.repository.WalletRepository;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,10 +16,10 @@ public class SessionState {
     private User currentUser;
     @Getter
     private Wallet currentWallet;
-    private final WalletRepositoryImpl walletRepository;
-    private final UserRepositoryImpl userRepository;
+    private final WalletRepository walletRepository;
+    private final UserRepository userRepository;
 
-    public SessionState(WalletRepositoryImpl walletRepository, UserRepositoryImpl userRepository) {
+    public SessionState(WalletRepository walletRepository, UserRepository userRepository) {
         this.walletRepository = walletRepository;
         this.userRepository = userRepository;
     }
@@ -31,10 +31,17 @@ public class SessionState {
                 .orElseThrow(() -> new IllegalStateException("Кошелек не найден"));
     }
 
+    // Сессия с уже загруженным кошельком (сервер делит один экземпляр между сессиями пользователя)
+    public void setCurrentSession(User user, Wallet wallet) {
+        currentUser = user;
+        currentWallet = wallet;
+    }
+
+    // Изменения пользователя и кошелька сохраняются сервисами сразу, поэтому при выходе заголовок
+    // не перезаписывается (кошелек сессии мог устареть) - только сбрасываются отложенные записи
     public void saveAndClose() {
         if (currentUser != null && currentWallet != null) {
-            userRepository.save(currentUser);
-            walletRepository.save(currentWallet);
+            walletRepository.flush(currentWallet.getUserId());
             clear();
         }
     }
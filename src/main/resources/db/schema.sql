@@ -0,0 +1,62 @@
+-- Схема встроенной БД (app.storage.backend=h2), применяется при каждом подключении
+CREATE TABLE IF NOT EXISTS users (
+    id            UUID PRIMARY KEY,
+    login         VARCHAR(64) NOT NULL,
+    password_hash VARCHAR(100) NOT NULL,
+    created       TIMESTAMP(9)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS users_login ON users (login);
+
+-- Заголовок кошелька (категории, бюджеты, активные переводы, суммы по категориям) - документом JSON
+CREATE TABLE IF NOT EXISTS wallets (
+    user_id UUID PRIMARY KEY,
+    balance DECFLOAT NOT NULL,
+    header  CLOB NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL
+);
+-- базы, созданные до появления версии заголовка
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- История операций: одна строка на транзакцию владельца, изменение статуса перезаписывает строку
+CREATE TABLE IF NOT EXISTS transactions (
+    owner_id      UUID NOT NULL,
+    id            UUID NOT NULL,
+    type          VARCHAR(16) NOT NULL,
+    amount        DECFLOAT NOT NULL,
+    category_id   UUID,
+    category_name VARCHAR(255),
+    category_type VARCHAR(16),
+    created       TIMESTAMP(9) NOT NULL,
+    status        VARCHAR(16) NOT NULL,
+    description   VARCHAR(1024),
+    sender_id     UUID,
+    receiver_id   UUID,
+    expires       TIMESTAMP(9),
+    PRIMARY KEY (owner_id, id)
+);
+CREATE INDEX IF NOT EXISTS transactions_id ON transactions (id);
+-- по убыванию: первая страница истории читается из индекса без сортировки
+CREATE INDEX IF NOT EXISTS transactions_owner_created ON transactions (owner_id, created DESC, id DESC);
+-- ожидающие переводы для планировщика истечения сроков
+CREATE INDEX IF NOT EXISTS transactions_status ON transactions (status, type);
+
+CREATE TABLE IF NOT EXISTS transfers (
+    user_id        UUID NOT NULL,
+    incoming       BOOLEAN NOT NULL,
+    transaction_id UUID NOT NULL,
+    created        TIMESTAMP(9),
+    sender_login   VARCHAR(64),
+    receiver_login VARCHAR(64),
+    receiver_id    UUID,
+    amount         DECFLOAT,
+    encrypted_data VARBINARY,
+    PRIMARY KEY (user_id, incoming, transaction_id)
+);
+-- страницы входящих переводов в порядке поступления
+CREATE INDEX IF NOT EXISTS transfers_queue ON transfers (user_id, incoming, created, transaction_id);
+
+-- Выполненные однократные переносы данных
+CREATE TABLE IF NOT EXISTS migrations (
+    name    VARCHAR(64) PRIMARY KEY,
+    applied TIMESTAMP(9) NOT NULL
+);
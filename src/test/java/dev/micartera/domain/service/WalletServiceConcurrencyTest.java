@@ -0,0 +1,108 @@
+package dev.micartera.domain.service;
+
+import dev.micartera.domain.exception.ValidationException;
+import dev.micartera.domain.model.Category;
+import dev.micartera.domain.model.Transaction;
+import dev.micartera.domain.model.User;
+import dev.micartera.domain.model.Wallet;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.repository.Repositories;
+import dev.micartera.presentation.service.SessionState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Два независимых набора репозиториев (каждый со своими write-behind и кэшем) над одним каталогом:
+// сессии одного кошелька конфликтуют по версии и повторяют операции, ни одно изменение не теряется
+class WalletServiceConcurrencyTest {
+    private static final int THREADS = 4;
+    private static final int OPERATIONS = 25;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @TempDir
+    Path storage;
+
+    @BeforeEach
+    void configure() throws IOException {
+        ApplicationConfig.initialize();
+        ApplicationConfig.setProperty("app.storage.path", storage.toString());
+    }
+
+    @Test
+    void balanceMatchesHistoryAcrossRepositoryInstances() throws Exception {
+        List<Repositories> instances = List.of(
+                Repositories.create("files", List.of("write-behind", "cache")),
+                Repositories.create("files", List.of("write-behind", "cache")));
+        User user = new User(UUID.randomUUID(), "concurrent", "hash", LocalDateTime.now());
+        Category category = new Category(UUID.randomUUID(), "salary", Category.CategoryType.INCOME);
+        Wallet wallet = new Wallet(user.getId());
+        wallet.getCategories().add(category);
+        instances.get(0).getUserRepository().save(user);
+        instances.get(0).getWalletRepository().save(wallet);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> sessions = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Repositories repositories = instances.get(i % instances.size());
+                sessions.add(executor.submit(() -> {
+                    WalletService walletService = walletService(repositories, user.getId());
+                    for (int done = 0; done < OPERATIONS; ) {
+                        try {
+                            walletService.addIncome(AMOUNT, category, "concurrent");
+                            done++;
+                        } catch (ValidationException e) {
+                            // конфликт версий: кошелек сессии перечитан, операция повторяется
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> session : sessions) {
+                session.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        instances.forEach(repositories -> repositories.getWalletRepository().flush());
+        instances.forEach(Repositories::close);
+
+        Repositories check = Repositories.create("files", List.of());
+        try {
+            Wallet stored = check.getWalletRepository().findByUserId(user.getId()).orElseThrow();
+            List<Transaction> history;
+            try (Stream<Transaction> records = check.getWalletRepository().streamHistory(user.getId())) {
+                history = records.toList();
+            }
+            BigDecimal sum = history.stream().map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            assertEquals(THREADS * OPERATIONS, history.size());
+            assertEquals(0, stored.getBalance().compareTo(sum), "balance " + stored.getBalance() + ", history " + sum);
+            assertEquals(0, sum.compareTo(AMOUNT.multiply(BigDecimal.valueOf(THREADS * OPERATIONS))));
+        } finally {
+            check.close();
+        }
+    }
+
+    private static WalletService walletService(Repositories repositories, UUID userId) {
+        SessionState sessionState = new SessionState(repositories.getWalletRepository(),
+                repositories.getUserRepository());
+        sessionState.setCurrentSession(userId);
+        return new WalletService(repositories.getWalletRepository(), new ValidationService(),
+                new NotificationService(sessionState), sessionState);
+    }
+}
@@ -0,0 +1,83 @@
+package dev.micartera.infrastructure.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AtomicFileWriterTest {
+    private static final byte[] OLD = "old content".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEW = "new content, longer than the old one".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replacesFileContent() throws IOException {
+        Path target = dir.resolve("wallet.json");
+        Files.write(target, OLD);
+
+        AtomicFileWriter.write(target, NEW);
+
+        assertArrayEquals(NEW, Files.readAllBytes(target));
+        assertEquals(List.of(target), files());
+    }
+
+    @Test
+    void failureBeforeMoveKeepsOldFile() throws IOException {
+        Path target = dir.resolve("wallet.json");
+        Files.write(target, OLD);
+        AtomicFileWriter.Step crash = tmp -> {
+            // временный файл уже полностью записан и сброшен на диск
+            assertArrayEquals(NEW, Files.readAllBytes(tmp));
+            throw new IOException("crash before rename");
+        };
+
+        IOException error = assertThrows(IOException.class,
+                () -> AtomicFileWriter.write(target, out -> out.write(NEW), crash));
+
+        assertEquals("crash before rename", error.getMessage());
+        assertArrayEquals(OLD, Files.readAllBytes(target));
+        assertEquals(List.of(target), files());
+    }
+
+    @Test
+    void failureWhileWritingKeepsOldFile() throws IOException {
+        Path target = dir.resolve("wallet.json");
+        Files.write(target, OLD);
+
+        assertThrows(IOException.class, () -> AtomicFileWriter.write(target, out -> {
+            out.write(NEW, 0, NEW.length / 2);
+            throw new IOException("disk full");
+        }));
+
+        assertArrayEquals(OLD, Files.readAllBytes(target));
+        assertEquals(List.of(target), files());
+    }
+
+    @Test
+    void failureBeforeFirstMoveLeavesNoFile() throws IOException {
+        Path target = dir.resolve("wallet.json");
+        AtomicFileWriter.Step crash = tmp -> {
+            throw new IOException("crash before rename");
+        };
+
+        assertThrows(IOException.class, () -> AtomicFileWriter.write(target, out -> out.write(NEW), crash));
+
+        assertFalse(Files.exists(target));
+        assertEquals(List.of(), files());
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+}
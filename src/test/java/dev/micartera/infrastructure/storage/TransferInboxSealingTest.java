@@ -0,0 +1,95 @@
+package dev.micartera.infrastructure.storage;
+
+import dev.micartera.domain.model.TransferFile;
+import dev.micartera.infrastructure.config.ApplicationConfig;
+import dev.micartera.infrastructure.security.TransferSealer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Переводы, записанные до запечатывания, запечатываются один раз; записи без печати,
+// появившиеся после переноса, проверку не проходят
+class TransferInboxSealingTest {
+    private static final StorageFormat FORMAT = StorageFormat.JSON;
+
+    @TempDir
+    Path storage;
+
+    private Path dir;
+
+    @BeforeEach
+    void configure() throws IOException {
+        ApplicationConfig.initialize();
+        ApplicationConfig.setProperty("app.storage.path", storage.toString());
+        dir = storage.resolve("transfers");
+    }
+
+    @Test
+    void sealsQueuedAndLegacyTransfersOnce() throws IOException {
+        UUID queued = UUID.randomUUID();
+        UUID legacy = UUID.randomUUID();
+        TransferFile queuedTransfer = transfer(queued);
+        TransferInbox before = open();
+        before.append(queued, true, queuedTransfer);
+        before.close();
+        // хранилище до запечатывания: отметки нет, у второго пользователя файлы старого формата
+        Files.delete(dir.resolve(".sealed"));
+        TransferFile legacyTransfer = transfer(legacy);
+        Path legacyDir = Files.createDirectories(dir.resolve(legacy.toString()).resolve("in"));
+        Files.write(legacyDir.resolve(legacyTransfer.getTransactionId() + FORMAT.getExtension()),
+                StorageCodec.forFormat(FORMAT).toBytes(legacyTransfer));
+
+        TransferInbox inbox = open();
+        try {
+            TransferSealer sealer = TransferSealer.configured();
+            TransferFile sealedQueued = inbox.find(queued, true, queuedTransfer.getTransactionId()).orElseThrow();
+            TransferFile sealedLegacy = inbox.find(legacy, true, legacyTransfer.getTransactionId()).orElseThrow();
+            assertEquals(0, queuedTransfer.getAmount().compareTo(sealer.open(sealedQueued).orElseThrow().getAmount()));
+            assertEquals("sender", sealer.open(sealedLegacy).orElseThrow().getSenderLogin());
+            // открыто сумма и логины не хранятся
+            assertNull(sealedQueued.getAmount());
+            assertNull(sealedLegacy.getSenderLogin());
+            assertEquals(1, inbox.count(queued, true));
+            assertFalse(Files.exists(legacyDir));
+            assertTrue(Files.exists(dir.resolve(".sealed")));
+        } finally {
+            inbox.close();
+        }
+    }
+
+    @Test
+    void unsealedRecordAfterMigrationIsRejected() {
+        UUID owner = UUID.randomUUID();
+        TransferFile transfer = transfer(owner);
+        TransferInbox inbox = open();
+        inbox.append(owner, true, transfer);
+        inbox.close();
+
+        TransferInbox reopened = open();
+        try {
+            TransferFile stored = reopened.find(owner, true, transfer.getTransactionId()).orElseThrow();
+            assertNull(stored.getEncryptedData());
+            assertTrue(TransferSealer.configured().open(stored).isEmpty());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private TransferInbox open() {
+        return TransferInbox.create(dir, FORMAT, FsyncPolicy.NEVER, 1000, 64);
+    }
+
+    private static TransferFile transfer(UUID receiverId) {
+        return new TransferFile(UUID.randomUUID(), LocalDateTime.now(), "sender", "receiver", receiverId,
+                new BigDecimal("10.00"), null);
+    }
+}